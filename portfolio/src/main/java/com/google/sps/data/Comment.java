@@ -28,4 +28,20 @@ public final class Comment {
     this.commentText = commentText;
     this.timestamp = timestamp;
   }
-}
\ No newline at end of file
+
+  public long getId() {
+    return id;
+  }
+
+  public String getAuthorName() {
+    return authorName;
+  }
+
+  public String getCommentText() {
+    return commentText;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+}
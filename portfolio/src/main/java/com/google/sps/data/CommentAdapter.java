@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Reads and writes a Comment as JSON field by field, without the reflection Gson uses by default.
+ * The JSON is the same as Gson's default for Comment.
+ */
+public final class CommentAdapter extends TypeAdapter<Comment> {
+
+  @Override
+  public void write(JsonWriter out, Comment comment) throws IOException {
+    if (comment == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    out.name("id").value(comment.getId());
+    out.name("authorName").value(comment.getAuthorName());
+    out.name("commentText").value(comment.getCommentText());
+    out.name("timestamp").value(comment.getTimestamp());
+    out.endObject();
+  }
+
+  @Override
+  public Comment read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    long id = 0;
+    String authorName = null;
+    String commentText = null;
+    long timestamp = 0;
+
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "id":
+          id = in.nextLong();
+          break;
+        case "authorName":
+          authorName = readNullableString(in);
+          break;
+        case "commentText":
+          commentText = readNullableString(in);
+          break;
+        case "timestamp":
+          timestamp = in.nextLong();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+
+    return new Comment(id, authorName, commentText, timestamp);
+  }
+
+  private static String readNullableString(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextString();
+  }
+}
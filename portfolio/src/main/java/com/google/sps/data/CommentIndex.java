@@ -0,0 +1,359 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory inverted index of the words in every comment's author name and text. Each word maps
+ * to the ids of the comments that contain it, kept sorted so that the comments containing every
+ * word of a search can be found by merging the lists. Matches are ranked by how often they use the
+ * words searched for, then newest first.
+ *
+ * <p>Like RecentComments, the index is labelled with the version of the comments it holds, and is
+ * only rebuilt when it is behind the version every instance shares. Searches never wait for a
+ * rebuild; they use the old index until the new one is ready. All methods are safe to call from
+ * multiple threads.
+ */
+public final class CommentIndex {
+
+  private static final CommentIndex INSTANCE = new CommentIndex();
+
+  /** Reads every comment from storage. */
+  public interface Loader {
+    /** Passes every stored comment to {@code comments}. */
+    void load(Consumer<Comment> comments);
+  }
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // Held by the one thread that is rebuilding; searches keep using the old index until it is done.
+  private final Lock rebuildLock = new ReentrantLock();
+
+  private Map<Long, Comment> comments = new HashMap<>();
+  private Map<String, Postings> postings = new HashMap<>();
+  // The version of the comments the index holds, or -1 before it is first built.
+  private long version = -1;
+
+  CommentIndex() {
+    // The app shares get(); tests make their own.
+  }
+
+  /** Returns the index shared by every servlet in this instance. */
+  public static CommentIndex get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Rebuilds the index from {@code loader} unless it already holds {@code version} or something
+   * newer. Comments changed on other instances of the app only reach this index this way. If
+   * another thread is already rebuilding, this returns at once and leaves the rebuild to it.
+   * @param version The current version of the comments, read before calling this, so that a
+   *     rebuild made here is at least that new.
+   * @return false if the index was not rebuilt because another thread is rebuilding it
+   */
+  public boolean refresh(long version, Loader loader) {
+    if (getVersion() >= version) {
+      return true;
+    }
+
+    if (!rebuildLock.tryLock()) {
+      return false;
+    }
+    try {
+      if (getVersion() >= version) {
+        return true;
+      }
+
+      Map<Long, Comment> newComments = new HashMap<>();
+      Map<String, Postings> newPostings = new HashMap<>();
+      loader.load(comment -> addTo(newComments, newPostings, comment));
+
+      lock.writeLock().lock();
+      try {
+        // Changes made here while loading may already have taken the index past this version.
+        if (this.version < version) {
+          comments = newComments;
+          postings = newPostings;
+          this.version = version;
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+      return true;
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  /**
+   * Adds a comment that was just stored, replacing any comment with the same id.
+   * @param version The version of the comments that storing it created. The index ignores the
+   *     comment if it already holds that version or a newer one, which then includes it. It only
+   *     takes the comment if it holds the version just before; otherwise it has missed some other
+   *     change, and is left for the next {@link #refresh} to rebuild.
+   */
+  public void add(Comment comment, long version) {
+    lock.writeLock().lock();
+    try {
+      if (!isNext(version)) {
+        return;
+      }
+      addTo(comments, postings, comment);
+      this.version = version;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes comments that were just deleted, the same way {@link #add} adds them.
+   * @param version The version of the comments that deleting them created.
+   */
+  public void remove(Collection<Long> ids, long version) {
+    lock.writeLock().lock();
+    try {
+      if (!isNext(version)) {
+        return;
+      }
+      for (long id : ids) {
+        removeFrom(comments, postings, id);
+      }
+      this.version = version;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Returns the version of the comments the index holds, or -1 if it has never been built. */
+  public long getVersion() {
+    lock.readLock().lock();
+    try {
+      return version;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns how many comments are in the index. */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return comments.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the comments that contain every word of {@code query}, best match first.
+   * @param limit The most comments to return. Must be positive.
+   * @return the matches, or an empty list if {@code query} has no words
+   */
+  public List<Comment> search(String query, int limit) {
+    if (query == null) {
+      throw new IllegalArgumentException("query cannot be null");
+    }
+
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+
+    List<String> terms = new ArrayList<>(tokenize(query).keySet());
+    if (terms.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    lock.readLock().lock();
+    try {
+      Postings[] lists = new Postings[terms.size()];
+      for (int i = 0; i < lists.length; i++) {
+        lists[i] = postings.get(terms.get(i));
+        if (lists[i] == null) {
+          return new ArrayList<>();
+        }
+      }
+      // Walking the shortest list first means each step only checks ids that can still match.
+      Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+      List<Match> matches = new ArrayList<>();
+      int[] positions = new int[lists.length];
+      Postings shortest = lists[0];
+      candidates:
+      for (int i = 0; i < shortest.size; i++) {
+        long id = shortest.ids[i];
+        int frequency = shortest.frequencies[i];
+        for (int j = 1; j < lists.length; j++) {
+          Postings list = lists[j];
+          positions[j] = list.seek(id, positions[j]);
+          if (positions[j] == list.size) {
+            break candidates;
+          }
+          if (list.ids[positions[j]] != id) {
+            continue candidates;
+          }
+          frequency += list.frequencies[positions[j]];
+        }
+        matches.add(new Match(comments.get(id), frequency));
+      }
+
+      matches.sort((a, b) -> a.frequency != b.frequency
+          ? Integer.compare(b.frequency, a.frequency)
+          : Long.compare(b.comment.getTimestamp(), a.comment.getTimestamp()));
+
+      List<Comment> results = new ArrayList<>(Math.min(limit, matches.size()));
+      for (int i = 0; i < matches.size() && i < limit; i++) {
+        results.add(matches.get(i).comment);
+      }
+      return results;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns whether {@code version} directly follows the one the index holds. Call this holding
+   * the write lock.
+   */
+  private boolean isNext(long version) {
+    if (this.version >= version) {
+      // The index was rebuilt at or after this change, so it already has it.
+      return false;
+    }
+    return this.version == version - 1;
+  }
+
+  private static void addTo(Map<Long, Comment> comments, Map<String, Postings> postings,
+      Comment comment) {
+    removeFrom(comments, postings, comment.getId());
+    comments.put(comment.getId(), comment);
+    for (Map.Entry<String, Integer> term : countTerms(comment).entrySet()) {
+      postings.computeIfAbsent(term.getKey(), key -> new Postings())
+          .add(comment.getId(), term.getValue());
+    }
+  }
+
+  private static void removeFrom(Map<Long, Comment> comments, Map<String, Postings> postings,
+      long id) {
+    Comment removed = comments.remove(id);
+    if (removed == null) {
+      return;
+    }
+
+    for (String term : countTerms(removed).keySet()) {
+      Postings list = postings.get(term);
+      if (list != null && list.remove(id) && list.size == 0) {
+        postings.remove(term);
+      }
+    }
+  }
+
+  private static Map<String, Integer> countTerms(Comment comment) {
+    Map<String, Integer> counts = tokenize(comment.getAuthorName());
+    for (Map.Entry<String, Integer> term : tokenize(comment.getCommentText()).entrySet()) {
+      counts.merge(term.getKey(), term.getValue(), Integer::sum);
+    }
+    return counts;
+  }
+
+  /**
+   * Splits {@code text} into lower case words of letters and digits, and counts each one.
+   */
+  private static Map<String, Integer> tokenize(String text) {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    if (text == null) {
+      return counts;
+    }
+
+    String lowerCase = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lowerCase.length(); i++) {
+      boolean inWord = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+      if (inWord && start == -1) {
+        start = i;
+      } else if (!inWord && start != -1) {
+        counts.merge(lowerCase.substring(start, i), 1, Integer::sum);
+        start = -1;
+      }
+    }
+    return counts;
+  }
+
+  /** The ids of the comments that contain one word, in increasing order, and each one's count. */
+  private static final class Postings {
+    private long[] ids = new long[4];
+    private int[] frequencies = new int[4];
+    private int size;
+
+    private void add(long id, int frequency) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+      if (index >= 0) {
+        frequencies[index] = frequency;
+        return;
+      }
+
+      index = -index - 1;
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+      System.arraycopy(ids, index, ids, index + 1, size - index);
+      System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+      ids[index] = id;
+      frequencies[index] = frequency;
+      size++;
+    }
+
+    private boolean remove(long id) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+      if (index < 0) {
+        return false;
+      }
+
+      System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+      System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+      size--;
+      return true;
+    }
+
+    /** Returns the first position at or after {@code from} whose id is at least {@code id}. */
+    private int seek(long id, int from) {
+      int index = Arrays.binarySearch(ids, from, size, id);
+      return index >= 0 ? index : -index - 1;
+    }
+  }
+
+  /** A comment that contains every word searched for, and how often it uses them. */
+  private static final class Match {
+    private final Comment comment;
+    private final int frequency;
+
+    private Match(Comment comment, int frequency) {
+      this.comment = comment;
+      this.frequency = frequency;
+    }
+  }
+}
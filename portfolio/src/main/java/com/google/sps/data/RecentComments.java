@@ -0,0 +1,179 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory copy of the newest comments, so that the first page of the comment section can be
+ * served without a Datastore query. New comments are written through to it and deleting the
+ * comments clears it.
+ *
+ * <p>The copy is labelled with the version of the comments it was loaded at, and callers pass in
+ * the current version, which every instance of the app shares. The copy is only used while it is at
+ * least that new, so a change made on another instance is seen by the very next read here, and a
+ * page is never older than the version it is served as. The time to live only bounds how long a
+ * copy is kept. All methods are safe to call from multiple threads.
+ */
+public final class RecentComments {
+
+  /** How many of the newest comments are kept. */
+  public static final int CAPACITY = 100;
+
+  private static final long TTL_MILLIS = 30 * 1000;
+
+  private static final RecentComments INSTANCE = new RecentComments(CAPACITY, TTL_MILLIS);
+
+  /** Reads the newest comments from storage. */
+  public interface Loader {
+    /**
+     * Adds up to {@code limit} of the newest comments to {@code comments}, newest first, and the
+     * page token that continues after each one to {@code pageTokens}.
+     */
+    void load(int limit, List<Comment> comments, List<String> pageTokens);
+  }
+
+  private final int capacity;
+  private final long ttlMillis;
+
+  // Newest first. A comment written through this cache has no page token, so its entry is null.
+  private final List<Comment> comments = new ArrayList<>();
+  private final List<String> pageTokens = new ArrayList<>();
+  // True when the comments held here are all the comments there are.
+  private boolean complete;
+  // When the comments were last loaded, or -1 if they need to be loaded.
+  private long loadedAtMillis = -1;
+  // The version of the comments the copy holds.
+  private long version;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  private RecentComments(int capacity, long ttlMillis) {
+    this.capacity = capacity;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /** Returns the cache shared by every servlet in this instance. */
+  public static RecentComments get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the newest {@code pageSize} comments, calling {@code loader} first if they aren't all
+   * held here, the copy has expired, or it is not of {@code version}.
+   * @param pageSize How many comments to return. Must be between 1 and {@link #CAPACITY}.
+   * @param version The current version of the comments, read before calling this, so that a
+   *     load made here is at least that new.
+   */
+  public synchronized CommentPage getPage(int pageSize, long version, Loader loader) {
+    if (pageSize <= 0 || pageSize > capacity) {
+      throw new IllegalArgumentException("pageSize must be between 1 and " + capacity);
+    }
+
+    CommentPage page = isFresh(version) ? pageOf(pageSize) : null;
+    if (page != null) {
+      hits.incrementAndGet();
+      return page;
+    }
+    misses.incrementAndGet();
+
+    // Loading under the lock means a burst of misses costs one query, not one each.
+    comments.clear();
+    pageTokens.clear();
+    loader.load(capacity, comments, pageTokens);
+    complete = comments.size() < capacity;
+    loadedAtMillis = System.currentTimeMillis();
+    this.version = version;
+    return pageOf(pageSize);
+  }
+
+  /**
+   * Puts a comment that was just stored in front of the others.
+   * @param version The version of the comments that storing it created. The copy ignores the
+   *     comment if it was loaded at that version or a newer one, which then includes it. It only
+   *     takes the comment if it holds the version just before; otherwise it has missed some other
+   *     change, and is left for the next read to reload.
+   */
+  public synchronized void add(Comment comment, long version) {
+    if (loadedAtMillis == -1 || this.version >= version) {
+      return;
+    }
+    if (this.version != version - 1) {
+      // The next read loads the comment with the rest.
+      return;
+    }
+    this.version = version;
+
+    comments.add(0, comment);
+    pageTokens.add(0, null);
+    if (comments.size() > capacity) {
+      comments.remove(comments.size() - 1);
+      pageTokens.remove(pageTokens.size() - 1);
+      complete = false;
+    }
+  }
+
+  /** Forgets every comment, so the next read loads them again. */
+  public synchronized void clear() {
+    comments.clear();
+    pageTokens.clear();
+    complete = false;
+    loadedAtMillis = -1;
+  }
+
+  /** Returns how many pages were served from memory. */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /** Returns how many pages had to load the comments first. */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** Returns the fraction of pages served from memory, or 0 if none have been asked for. */
+  public double getHitRatio() {
+    long hits = getHitCount();
+    long total = hits + getMissCount();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  private boolean isFresh(long version) {
+    return loadedAtMillis != -1 && this.version >= version
+        && System.currentTimeMillis() - loadedAtMillis < ttlMillis;
+  }
+
+  /**
+   * Returns the newest {@code pageSize} comments, or null if they can't be answered from here:
+   * either more comments are needed than are held, or there is no token for the page after.
+   */
+  private CommentPage pageOf(int pageSize) {
+    if (complete && comments.size() <= pageSize) {
+      return new CommentPage(new ArrayList<>(comments), null);
+    }
+    if (comments.size() < pageSize) {
+      return null;
+    }
+
+    String nextPageToken = pageTokens.get(pageSize - 1);
+    if (nextPageToken == null) {
+      return null;
+    }
+    return new CommentPage(new ArrayList<>(comments.subList(0, pageSize)), nextPageToken);
+  }
+}
@@ -0,0 +1,184 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.google.sps.data.CommentIndex;
+import com.google.sps.data.RecentComments;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes every comment through the push task queue, one batch per task. Each task reads only the
+ * keys of the next batch, deletes them in a single call, and then queues the task for the batch
+ * after it, so no request ever runs longer than one batch and nothing depends on a thread outliving
+ * its request. Progress is kept in Datastore, where every instance can report it.
+ */
+final class CommentDeletion {
+
+  /** Where the queued tasks are sent. */
+  static final String TASK_URL = "/tasks/delete-comments";
+
+  // The most keys Datastore accepts in one delete.
+  private static final int BATCH_SIZE = 500;
+
+  private static final Key PROGRESS_KEY = KeyFactory.createKey("CommentDeletion", "current");
+
+  private CommentDeletion() {
+    // Disallow instances.
+  }
+
+  /**
+   * Starts deleting every comment, unless a deletion is already running.
+   * @return the progress of the deletion that is now running
+   */
+  static Map<String, Object> start() {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      Entity progress = readProgress(datastore, transaction);
+      if (!(boolean) progress.getProperty("running")) {
+        progress.setProperty("running", true);
+        progress.setProperty("deleted", 0L);
+        progress.setProperty("error", null);
+        datastore.put(transaction, progress);
+        // Queued as part of the transaction, so the task exists exactly when the progress says so.
+        getQueue().add(transaction, TaskOptions.Builder.withUrl(TASK_URL));
+      }
+      transaction.commit();
+      return toMap(progress);
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+
+  /**
+   * Returns whether a deletion is running, how many comments it has deleted, and why its last
+   * batch failed if it did.
+   */
+  static Map<String, Object> getProgress() {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    return toMap(readProgress(datastore, null));
+  }
+
+  /**
+   * Deletes the batch of comments that starts at {@code pageToken}, or at the first comment if it
+   * is null, and queues the next batch if there may be more. Throws if the batch fails, so that
+   * the task queue retries it.
+   */
+  static void deleteBatch(String pageToken) {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(BATCH_SIZE);
+    if (pageToken != null && !pageToken.isEmpty()) {
+      fetchOptions.startCursor(Cursor.fromWebSafeString(pageToken));
+    }
+
+    List<Key> keys = new ArrayList<>(BATCH_SIZE);
+    QueryResultList<Entity> entities;
+    try {
+      entities = datastore.prepare(new Query("Comment").setKeysOnly())
+          .asQueryResultList(fetchOptions);
+      for (Entity entity : entities) {
+        keys.add(entity.getKey());
+      }
+      datastore.delete(keys);
+    } catch (RuntimeException e) {
+      recordError(datastore, e);
+      throw e;
+    }
+
+    // Only what was really deleted leaves the caches and the index.
+    RecentComments.get().clear();
+    List<Long> ids = new ArrayList<>(keys.size());
+    for (Key key : keys) {
+      ids.add(key.getId());
+    }
+    // If the new version can't be recorded this throws, and the retried task records it.
+    CommentIndex.get().remove(ids, CommentsVersion.bump());
+
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      Entity progress = readProgress(datastore, transaction);
+      progress.setProperty("deleted", (long) progress.getProperty("deleted") + keys.size());
+      progress.setProperty("error", null);
+      if (keys.size() == BATCH_SIZE) {
+        getQueue().add(transaction, TaskOptions.Builder.withUrl(TASK_URL)
+            .param("pageToken", entities.getCursor().toWebSafeString()));
+      } else {
+        // A short batch means the query ran out of comments.
+        progress.setProperty("running", false);
+      }
+      datastore.put(transaction, progress);
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+
+  private static void recordError(DatastoreService datastore, RuntimeException error) {
+    try {
+      Entity progress = readProgress(datastore, null);
+      progress.setProperty("error", error.toString());
+      datastore.put(progress);
+    } catch (RuntimeException e) {
+      // The task will be retried either way; the original error is what matters.
+      System.err.println("Could not record why deleting comments failed. " + e);
+    }
+  }
+
+  private static Entity readProgress(DatastoreService datastore, Transaction transaction) {
+    try {
+      return transaction == null
+          ? datastore.get(PROGRESS_KEY) : datastore.get(transaction, PROGRESS_KEY);
+    } catch (EntityNotFoundException e) {
+      Entity progress = new Entity(PROGRESS_KEY);
+      progress.setProperty("running", false);
+      progress.setProperty("deleted", 0L);
+      progress.setProperty("error", null);
+      return progress;
+    }
+  }
+
+  private static Map<String, Object> toMap(Entity progress) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("running", progress.getProperty("running"));
+    map.put("deleted", progress.getProperty("deleted"));
+    map.put("error", progress.getProperty("error"));
+    return map;
+  }
+
+  private static Queue getQueue() {
+    return QueueFactory.getDefaultQueue();
+  }
+}
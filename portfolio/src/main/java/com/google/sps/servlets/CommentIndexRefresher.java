@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.ThreadManager;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Query;
+import com.google.sps.data.Comment;
+import com.google.sps.data.CommentIndex;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Builds CommentIndex from Datastore when the app starts, then checks the shared CommentsVersion
+ * every few seconds on a background thread and rebuilds the index when it has fallen behind, for
+ * instance after comments changed on another instance. Searches only ever read the index.
+ *
+ * <p>Background threads need basic or manual scaling, which appengine-web.xml asks for.
+ */
+@WebListener
+public class CommentIndexRefresher implements ServletContextListener {
+
+  // How long the index may lag a change made on another instance.
+  private static final long REFRESH_SECONDS = 10;
+
+  private ScheduledExecutorService executor;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    refresh();
+    executor = Executors.newSingleThreadScheduledExecutor(ThreadManager.backgroundThreadFactory());
+    executor.scheduleWithFixedDelay(
+        CommentIndexRefresher::refresh, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void refresh() {
+    try {
+      long version = CommentsVersion.read().getVersion();
+      CommentIndex.get().refresh(version, CommentIndexRefresher::loadAll);
+    } catch (RuntimeException e) {
+      // Keep the index as it is; the next refresh tries again.
+      System.err.println("Could not refresh the comment index. " + e);
+    }
+  }
+
+  private static void loadAll(Consumer<Comment> comments) {
+    Query query = new Query("Comment");
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+
+    FetchOptions fetchOptions = FetchOptions.Builder.withChunkSize(500);
+    for (Entity entity : datastore.prepare(query).asIterable(fetchOptions)) {
+      comments.accept(ListCommentsServlet.toComment(entity));
+    }
+  }
+}
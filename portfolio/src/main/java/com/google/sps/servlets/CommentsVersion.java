@@ -0,0 +1,116 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
+import java.util.ConcurrentModificationException;
+
+/**
+ * A stamp that changes whenever the comments change, stored in Datastore so that every instance
+ * of the app agrees on it. Reading it is a single get by key, which is much cheaper than querying
+ * the comments, so clients that already have the current comments can be told so without a query.
+ */
+final class CommentsVersion {
+
+  private static final Key KEY = KeyFactory.createKey("CommentsVersion", "comments");
+  private static final int MAX_ATTEMPTS = 5;
+
+  // Counts every change, so that two changes within the same millisecond still differ.
+  private final long version;
+  // When the comments last changed, in milliseconds since the epoch, or 0 if they never have.
+  private final long modifiedMillis;
+
+  private CommentsVersion(long version, long modifiedMillis) {
+    this.version = version;
+    this.modifiedMillis = modifiedMillis;
+  }
+
+  /**
+   * Returns the current stamp.
+   */
+  static CommentsVersion read() {
+    return read(DatastoreServiceFactory.getDatastoreService(), null);
+  }
+
+  /**
+   * Records that the comments have changed. Call this after the change is stored, so that no one
+   * can see the new stamp together with the old comments, or pass the changed comments in to store
+   * them in the same transaction, so that neither is stored without the other.
+   * @param changes Comment entities to put along with the new stamp. At most 24.
+   * @return the new version
+   * @throws ConcurrentModificationException if other changes kept being recorded first
+   */
+  static long bump(Entity... changes) {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    for (int attempt = 1; ; attempt++) {
+      // Each comment is its own entity group, so storing them with the stamp needs a cross-group
+      // transaction.
+      Transaction transaction = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+      try {
+        CommentsVersion current = read(datastore, transaction);
+        Entity entity = new Entity(KEY);
+        entity.setProperty("version", current.version + 1);
+        entity.setProperty("modified", System.currentTimeMillis());
+        datastore.put(transaction, entity);
+        for (Entity change : changes) {
+          datastore.put(transaction, change);
+        }
+        transaction.commit();
+        return current.version + 1;
+      } catch (ConcurrentModificationException e) {
+        // Another instance bumped it at the same time; read its stamp and bump past it.
+        if (attempt == MAX_ATTEMPTS) {
+          throw e;
+        }
+      } finally {
+        if (transaction.isActive()) {
+          transaction.rollback();
+        }
+      }
+    }
+  }
+
+  /** Returns the number of changes so far. */
+  long getVersion() {
+    return version;
+  }
+
+  /** Returns the stamp as a strong HTTP entity tag. */
+  String getETag() {
+    return "\"" + version + "\"";
+  }
+
+  /** Returns when the comments last changed, or 0 if they never have. */
+  long getModifiedMillis() {
+    return modifiedMillis;
+  }
+
+  private static CommentsVersion read(DatastoreService datastore, Transaction transaction) {
+    try {
+      Entity entity = transaction == null ? datastore.get(KEY) : datastore.get(transaction, KEY);
+      return new CommentsVersion(
+          (long) entity.getProperty("version"), (long) entity.getProperty("modified"));
+    } catch (EntityNotFoundException e) {
+      return new CommentsVersion(0, 0);
+    }
+  }
+}
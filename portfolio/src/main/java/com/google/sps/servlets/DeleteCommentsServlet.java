@@ -14,32 +14,37 @@
 
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
-import com.google.appengine.api.datastore.DatastoreServiceFactory;
-import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
-import com.google.sps.data.Comment;
+import com.google.gson.Gson;
 import java.io.IOException;
+import java.util.Map;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Servlet responsible for deleting comments. */
+/**
+ * Servlet responsible for deleting comments. A POST queues the deletion of every comment and
+ * returns at once; a GET reports how far the deletion has got.
+ */
 @WebServlet("/delete-comments")
 public class DeleteCommentsServlet extends HttpServlet {
 
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Query query = new Query("Comment");
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    response.setStatus(HttpServletResponse.SC_ACCEPTED);
+    writeProgress(CommentDeletion.start(), response);
+  }
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    writeProgress(CommentDeletion.getProgress(), response);
+  }
 
-    PreparedQuery results = datastore.prepare(query);
-    for (Entity e : results.asIterable()) {
-        datastore.delete(e.getKey());
-    }
+  private static void writeProgress(Map<String, Object> progress, HttpServletResponse response)
+      throws IOException {
+    Gson gson = new Gson();
 
-    response.sendRedirect("/#comments");
+    response.setContentType("application/json;");
+    response.getWriter().println(gson.toJson(progress));
   }
 }
@@ -0,0 +1,40 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet responsible for running one batch of a comment deletion. Only the task queue calls it;
+ * any exception makes the request fail, which makes the queue retry the batch.
+ */
+@WebServlet(CommentDeletion.TASK_URL)
+public class DeleteCommentsTaskServlet extends HttpServlet {
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) {
+    // App Engine removes this header from outside requests, so only queued tasks carry it.
+    if (request.getHeader("X-AppEngine-QueueName") == null) {
+      response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    CommentDeletion.deleteBatch(request.getParameter("pageToken"));
+    response.setStatus(HttpServletResponse.SC_OK);
+  }
+}
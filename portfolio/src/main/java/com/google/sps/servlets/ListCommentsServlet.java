@@ -14,6 +14,7 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
@@ -21,50 +22,176 @@ import com.google.appengine.api.datastore.FetchOptions;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.QueryResultIterator;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import com.google.sps.data.Comment;
+import com.google.sps.data.CommentAdapter;
+import com.google.sps.data.CommentPage;
+import com.google.sps.data.RecentComments;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Servlet responsible for retrieving comments from Datastore. */
+/**
+ * Servlet responsible for retrieving comments from Datastore, newest first, one page at a time.
+ * Each response carries a nextPageToken; passing it back as pageToken continues from where the
+ * previous page ended instead of reading from the top again.
+ */
 @WebServlet("/list-comments")
 public class ListCommentsServlet extends HttpServlet {
 
+  // Used when the request doesn't ask for a valid page size.
+  private static final int DEFAULT_PAGE_SIZE = 10;
+
+  // No request reads more than this many comments, whatever page size it asks for. The first page
+  // is served from RecentComments, so this can't be more than it holds.
+  private static final int MAX_PAGE_SIZE = RecentComments.CAPACITY;
+
+  private static final CommentAdapter COMMENT_ADAPTER = new CommentAdapter();
+
+  // Shared by every request, here and in SearchCommentsServlet; Gson is thread safe once built.
+  static final Gson GSON =
+      new GsonBuilder().registerTypeAdapter(Comment.class, COMMENT_ADAPTER).create();
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Query query = new Query("Comment").addSort("timestamp", SortDirection.DESCENDING);
+    // Clients must check back every time, but a client that has the current comments gets a 304
+    // without the comments being queried.
+    CommentsVersion version = CommentsVersion.read();
+    response.setHeader("Cache-Control", "no-cache");
+    response.setHeader("ETag", version.getETag());
+    if (version.getModifiedMillis() != 0) {
+      response.setDateHeader("Last-Modified", version.getModifiedMillis());
+    }
+    if (isUnchanged(request, version)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
 
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    PreparedQuery results = datastore.prepare(query);
-    int numComments = parseNaturalNumber(request.getParameter("numComments"));
+    // numComments is the name older pages of the site send the page size under.
+    String pageSizeParameter = request.getParameter("pageSize");
+    if (pageSizeParameter == null) {
+      pageSizeParameter = request.getParameter("numComments");
+    }
+    int pageSize = parseNaturalNumber(pageSizeParameter);
+    if (pageSize <= 0) {
+      pageSize = DEFAULT_PAGE_SIZE;
+    }
+    pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
 
-    Iterable<Entity> entities;
-    if (numComments == -1) {
-      entities = results.asIterable();
+    String pageToken = request.getParameter("pageToken");
+    Cursor startCursor = null;
+    if (pageToken != null && !pageToken.isEmpty()) {
+      try {
+        startCursor = Cursor.fromWebSafeString(pageToken);
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid pageToken.");
+        return;
+      }
+    }
+
+    response.setContentType("application/json;");
+    JsonWriter writer = GSON.newJsonWriter(response.getWriter());
+    if (startCursor == null) {
+      // The first page is what almost every visit asks for, so it usually comes from memory.
+      // The page must be at least as new as the ETag says, or a client could keep an old page.
+      CommentPage page = RecentComments.get()
+          .getPage(pageSize, version.getVersion(), ListCommentsServlet::loadNewest);
+      GSON.toJson(page, CommentPage.class, writer);
     } else {
-      entities = results.asList(FetchOptions.Builder.withLimit(numComments));
+      writePage(pageSize, startCursor, writer);
+    }
+    writer.flush();
+  }
+
+  /**
+   * Returns whether the client's copy, as described by its conditional headers, is still current.
+   * If-None-Match wins when both are sent, as HTTP requires.
+   */
+  private static boolean isUnchanged(HttpServletRequest request, CommentsVersion version) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.equals("*") || tag.equals(version.getETag())
+            || tag.equals("W/" + version.getETag())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader("If-Modified-Since");
+    } catch (IllegalArgumentException e) {
+      return false;
     }
+    // HTTP dates only have whole seconds, so compare against the second of the last change.
+    return ifModifiedSince != -1 && version.getModifiedMillis() != 0
+        && version.getModifiedMillis() / 1000 <= ifModifiedSince / 1000;
+  }
 
-    List<Comment> comments = new ArrayList<>();
-    for (Entity entity : entities) {
-      long id = entity.getKey().getId();
-      String authorName = (String) entity.getProperty("authorName");
-      String commentText = (String) entity.getProperty("commentText");
-      long timestamp = (long) entity.getProperty("timestamp");
+  /**
+   * Writes the {@code pageSize} comments that follow {@code startCursor} as they are read, in the
+   * same form as a CommentPage, so only one comment is held in memory at a time.
+   */
+  private static void writePage(int pageSize, Cursor startCursor, JsonWriter writer)
+      throws IOException {
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(pageSize).startCursor(startCursor);
+    QueryResultIterator<Entity> entities = prepareQuery().asQueryResultIterator(fetchOptions);
 
-      Comment comment = new Comment(id, authorName, commentText, timestamp);
-      comments.add(comment);
+    writer.beginObject();
+    writer.name("comments").beginArray();
+    int count = 0;
+    while (entities.hasNext()) {
+      COMMENT_ADAPTER.write(writer, toComment(entities.next()));
+      count++;
     }
+    writer.endArray();
 
-    Gson gson = new Gson();
+    // A short page means the query ran out of comments, so there is nothing to continue from.
+    if (count == pageSize) {
+      writer.name("nextPageToken").value(entities.getCursor().toWebSafeString());
+    }
+    writer.endObject();
+  }
 
-    response.setContentType("application/json;");
-    response.getWriter().println(gson.toJson(comments));
+  /**
+   * Reads the newest {@code limit} comments for {@link RecentComments}, along with the page token
+   * that continues after each of them.
+   */
+  private static void loadNewest(int limit, List<Comment> comments, List<String> pageTokens) {
+    QueryResultIterator<Entity> entities =
+        prepareQuery().asQueryResultIterator(FetchOptions.Builder.withLimit(limit));
+    while (entities.hasNext()) {
+      comments.add(toComment(entities.next()));
+      pageTokens.add(entities.getCursor().toWebSafeString());
+    }
+  }
+
+  private static PreparedQuery prepareQuery() {
+    Query query = new Query("Comment").addSort("timestamp", SortDirection.DESCENDING);
+
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    return datastore.prepare(query);
+  }
+
+  /**
+   * Convert a Comment entity into the Comment sent to the page.
+   */
+  static Comment toComment(Entity entity) {
+    long id = entity.getKey().getId();
+    String authorName = (String) entity.getProperty("authorName");
+    String commentText = (String) entity.getProperty("commentText");
+    long timestamp = (long) entity.getProperty("timestamp");
+
+    return new Comment(id, authorName, commentText, timestamp);
   }
 
   /**
@@ -14,10 +14,13 @@
 
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
-import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.DatastoreFailureException;
 import com.google.appengine.api.datastore.Entity;
+import com.google.sps.data.Comment;
+import com.google.sps.data.CommentIndex;
+import com.google.sps.data.RecentComments;
 import java.io.IOException;
+import java.util.ConcurrentModificationException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -41,8 +44,22 @@ public class NewCommentServlet extends HttpServlet {
     commentEntity.setProperty("commentText", userComment);
     commentEntity.setProperty("timestamp", timestamp);
 
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    datastore.put(commentEntity);
+    long version;
+    try {
+      // The comment and the new version are stored together, so no client can be told the
+      // comments haven't changed once the comment is there.
+      version = CommentsVersion.bump(commentEntity);
+    } catch (ConcurrentModificationException | DatastoreFailureException e) {
+      // Nothing was stored, so the poster can safely try again.
+      System.err.println("Could not store a new comment. " + e);
+      response.sendError(
+          HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Your comment could not be saved.");
+      return;
+    }
+
+    Comment comment = new Comment(commentEntity.getKey().getId(), author, userComment, timestamp);
+    CommentIndex.get().add(comment, version);
+    RecentComments.get().add(comment, version);
 
     response.sendRedirect("/#comments");
   }
@@ -0,0 +1,62 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.data.Comment;
+import com.google.sps.data.CommentIndex;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet responsible for searching comments. Searches are answered from CommentIndex alone;
+ * CommentIndexRefresher builds it when the app starts and keeps it up to date.
+ */
+@WebServlet("/search-comments")
+public class SearchCommentsServlet extends HttpServlet {
+
+  // Used when the request doesn't ask for a valid number of results.
+  private static final int DEFAULT_LIMIT = 20;
+
+  // No search returns more than this many comments.
+  private static final int MAX_LIMIT = 100;
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String query = request.getParameter("q");
+    if (query == null) {
+      query = "";
+    }
+
+    int limit = DEFAULT_LIMIT;
+    try {
+      limit = Integer.parseInt(request.getParameter("limit"));
+    } catch (NumberFormatException e) {
+      // Keep the default.
+    }
+    if (limit <= 0) {
+      limit = DEFAULT_LIMIT;
+    }
+    limit = Math.min(limit, MAX_LIMIT);
+
+    List<Comment> results = CommentIndex.get().search(query, limit);
+
+    response.setContentType("application/json;");
+    response.getWriter().println(ListCommentsServlet.GSON.toJson(results));
+  }
+}
@@ -43,42 +43,67 @@ async function getComment() {
 }
 
 /**
- * Fetches comments from the server and adds them to the DOM.
+ * Fetches the first page of comments from the server and adds them to the DOM.
  */
 async function loadComments() {
-  const numComments = document.getElementById("num-comments").value;
-  const deleteButtonContainer = document.getElementById("delete-comment-btn");
-
-  const response = await fetch(`/list-comments?numComments=${numComments}`);
-  const comments = await response.json();
   const commentContainerElement = document.getElementById('comment-container');
   const listElement = document.createElement('ul');
   listElement.className = 'comment-list';
-  
-  comments.forEach((comment) => {
-    listElement.appendChild(createCommentElement(comment));
-  })
+
   // Clear comments after each retrieval and replace with new
   commentContainerElement.innerHTML = '';
   commentContainerElement.appendChild(listElement);
+  await loadCommentPage(listElement, '');
+}
+
+/**
+ * Fetches the page of comments that starts at pageToken and appends it to listElement.
+ */
+async function loadCommentPage(listElement, pageToken) {
+  const numComments = document.getElementById("num-comments").value;
+  const deleteButtonContainer = document.getElementById("delete-comment-btn");
+  const moreButtonContainer = document.getElementById("more-comments-btn");
+
+  const response = await fetch(`/list-comments?pageSize=${numComments}` +
+      `&pageToken=${encodeURIComponent(pageToken)}`);
+  const page = await response.json();
+
+  page.comments.forEach((comment) => {
+    listElement.appendChild(createCommentElement(comment));
+  })
   deleteButtonContainer.innerHTML = '';
+  moreButtonContainer.innerHTML = '';
 
   // If there are comments being displayed on the page, add a delete button
-  if (comments.length > 0) {
+  if (listElement.childElementCount > 0) {
     let deleteButton = document.createElement('button');
     deleteButton.onclick = deleteAllComments;
     deleteButton.innerText = "Delete Every Comment";
     deleteButtonContainer.appendChild(deleteButton); 
   }
+
+  // If there are older comments, offer to fetch the next page
+  if (page.nextPageToken) {
+    let moreButton = document.createElement('button');
+    moreButton.onclick = () => loadCommentPage(listElement, page.nextPageToken);
+    moreButton.innerText = "More Comments";
+    moreButtonContainer.appendChild(moreButton);
+  }
 }
 
 /**
- * Makes a POST request to delete all comments.
+ * Makes a POST request to delete all comments, and reloads once they are gone.
  */
- function deleteAllComments() {
-   fetch('/delete-comments', {method: 'POST'});
-   window.location.reload();
- }
+async function deleteAllComments() {
+  let response = await fetch('/delete-comments', {method: 'POST'});
+  let progress = await response.json();
+  while (progress.running) {
+    await new Promise((resolve) => setTimeout(resolve, 500));
+    response = await fetch('/delete-comments');
+    progress = await response.json();
+  }
+  window.location.reload();
+}
 
 /**
  * Creates an element that represents a Comment.
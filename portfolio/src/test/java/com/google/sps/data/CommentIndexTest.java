@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CommentIndexTest {
+  private static final int LIMIT = 10;
+
+  private CommentIndex index;
+  private long version;
+
+  @Before
+  public void setUp() {
+    index = new CommentIndex();
+    index.refresh(0, comments -> {});
+  }
+
+  @Test
+  public void wordsAreMatchedWithoutCaseOrPunctuation() {
+    add(new Comment(1, "Ann Lee", "Cows, cows... and MORE cows!", 100));
+
+    assertIds(Arrays.asList(1L), index.search("cows", LIMIT));
+    assertIds(Arrays.asList(1L), index.search("More", LIMIT));
+    assertIds(Arrays.asList(1L), index.search("ann", LIMIT));
+    assertIds(Arrays.asList(), index.search("cow", LIMIT));
+    assertIds(Arrays.asList(), index.search("  ...!  ", LIMIT));
+  }
+
+  @Test
+  public void everyWordMustMatch() {
+    add(new Comment(1, "Ann", "milk and cows", 100));
+    add(new Comment(2, "Bob", "milk only", 200));
+    add(new Comment(3, "Cy", "cows only", 300));
+
+    assertIds(Arrays.asList(1L), index.search("cows milk", LIMIT));
+    assertIds(Arrays.asList(3L, 2L), index.search("only", LIMIT));
+    assertIds(Arrays.asList(), index.search("milk goats", LIMIT));
+  }
+
+  @Test
+  public void moreUsesRankFirstAndTiesGoToTheNewest() {
+    add(new Comment(1, "Ann", "milk", 300));
+    add(new Comment(2, "Bob", "milk milk milk", 100));
+    add(new Comment(3, "Cy", "milk", 200));
+
+    assertIds(Arrays.asList(2L, 1L, 3L), index.search("milk", LIMIT));
+    assertIds(Arrays.asList(2L, 1L), index.search("milk", 2));
+  }
+
+  @Test
+  public void removedCommentsAreNoLongerFound() {
+    add(new Comment(1, "Ann", "milk", 100));
+    add(new Comment(2, "Bob", "milk cows", 200));
+
+    index.remove(Arrays.asList(2L), ++version);
+
+    assertIds(Arrays.asList(1L), index.search("milk", LIMIT));
+    assertIds(Arrays.asList(), index.search("cows", LIMIT));
+  }
+
+  @Test
+  public void changesAfterAMissedVersionWaitForARefresh() {
+    add(new Comment(1, "Ann", "milk", 100));
+
+    // Another instance made version 2; this change is version 3, so the index can't take it.
+    index.add(new Comment(3, "Cy", "milk", 300), 3);
+    assertIds(Arrays.asList(1L), index.search("milk", LIMIT));
+
+    List<Comment> stored = Arrays.asList(new Comment(1, "Ann", "milk", 100),
+        new Comment(2, "Bob", "milk", 200), new Comment(3, "Cy", "milk", 300));
+    index.refresh(3, comments -> stored.forEach(comments));
+
+    Assert.assertEquals(3, index.getVersion());
+    assertIds(Arrays.asList(3L, 2L, 1L), index.search("milk", LIMIT));
+  }
+
+  @Test
+  public void refreshingToAnOlderVersionKeepsTheIndex() {
+    add(new Comment(1, "Ann", "milk", 100));
+    add(new Comment(2, "Bob", "milk", 200));
+
+    // A version read before the second change was stored must not undo it.
+    index.refresh(1, comments -> Assert.fail("The index should not be rebuilt."));
+
+    Assert.assertEquals(2, index.getVersion());
+    assertIds(Arrays.asList(2L, 1L), index.search("milk", LIMIT));
+  }
+
+  @Test
+  public void searchesUseTheOldIndexWhileAnotherThreadRebuilds() {
+    add(new Comment(1, "Ann", "milk", 100));
+
+    List<Comment> seen = new ArrayList<>();
+    boolean[] refreshed = new boolean[1];
+    index.refresh(5, comments -> {
+      comments.accept(new Comment(2, "Bob", "milk", 200));
+      Thread other = new Thread(() -> {
+        refreshed[0] = index.refresh(5, more -> Assert.fail("Only one rebuild should run."));
+        seen.addAll(index.search("milk", LIMIT));
+      });
+      other.start();
+      try {
+        other.join();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    });
+
+    Assert.assertFalse(refreshed[0]);
+    assertIds(Arrays.asList(1L), seen);
+    Assert.assertEquals(5, index.getVersion());
+    assertIds(Arrays.asList(2L), index.search("milk", LIMIT));
+  }
+
+  private void add(Comment comment) {
+    index.add(comment, ++version);
+  }
+
+  private static void assertIds(List<Long> expected, List<Comment> actual) {
+    List<Long> ids = new ArrayList<>();
+    for (Comment comment : actual) {
+      ids.add(comment.getId());
+    }
+    Assert.assertEquals(expected, ids);
+  }
+}
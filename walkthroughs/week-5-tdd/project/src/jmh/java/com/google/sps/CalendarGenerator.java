@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic single-day calendars that look like real ones: meetings start on the quarter
+ * hour during working hours, most last 30 or 60 minutes, and some are shared by several people.
+ */
+final class CalendarGenerator {
+  private static final int WORK_DAY_START = TimeRange.getTimeInMinutes(8, 0);
+  private static final int WORK_DAY_END = TimeRange.getTimeInMinutes(18, 0);
+  private static final int[] DURATIONS = {15, 30, 30, 30, 60, 60, 90, 120};
+
+  // The most other people that join a shared meeting.
+  private static final int MAX_GUESTS = 5;
+
+  // Disallow instances.
+  private CalendarGenerator() {}
+
+  /**
+   * Returns the names of {@code count} people.
+   */
+  static List<String> people(String prefix, int count) {
+    List<String> people = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      people.add(prefix + " " + i);
+    }
+    return people;
+  }
+
+  /**
+   * Generates a day of events for a group of people.
+   * @param random the source of randomness, seeded so that runs are repeatable
+   * @param people everyone who has events
+   * @param eventsPerAttendee how many events each person organizes
+   * @param overlapDensity the fraction of events, from 0 to 1, that other people from the group
+   *     also attend, so that their busy times overlap
+   * @return the events, in no particular order
+   */
+  static Collection<Event> events(Random random, List<String> people, int eventsPerAttendee,
+      double overlapDensity) {
+    List<Event> events = new ArrayList<>(people.size() * eventsPerAttendee);
+    for (String organizer : people) {
+      for (int i = 0; i < eventsPerAttendee; i++) {
+        List<String> attendees = new ArrayList<>();
+        attendees.add(organizer);
+        if (random.nextDouble() < overlapDensity) {
+          int guests = 1 + random.nextInt(MAX_GUESTS);
+          for (int j = 0; j < guests; j++) {
+            attendees.add(people.get(random.nextInt(people.size())));
+          }
+        }
+
+        int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+        int quarters = (WORK_DAY_END - duration - WORK_DAY_START) / 15;
+        int start = WORK_DAY_START + 15 * random.nextInt(quarters + 1);
+        events.add(new Event(organizer + " event " + i,
+            TimeRange.fromStartDuration(start, duration), attendees));
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Creates a request that invites {@code people}.
+   * @param optionalRatio the fraction of the people, from 0 to 1, who are optional
+   * @param duration the length of the meeting
+   */
+  static MeetingRequest request(List<String> people, double optionalRatio, long duration) {
+    int optionalCount = (int) Math.round(people.size() * optionalRatio);
+    int mandatoryCount = people.size() - optionalCount;
+    MeetingRequest request = new MeetingRequest(people.subList(0, mandatoryCount), duration);
+    for (String person : people.subList(mandatoryCount, people.size())) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+}
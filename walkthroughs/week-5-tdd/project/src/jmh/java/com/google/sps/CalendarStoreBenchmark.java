@@ -0,0 +1,84 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one write to a {@link CalendarStore}, adding an event and removing it again, as the
+ * store grows. Publishing a snapshot only copies what the write touched, so the time per write
+ * should stay about the same from the smallest store to the largest. It should also stay the same
+ * when every event has the same title, as a calendar full of recurring meetings does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarStoreBenchmark {
+  private static final int EVENTS_PER_ATTENDEE = 8;
+  private static final String REPEATED_TITLE = "Standup";
+
+  @Param({"100", "1000", "10000"})
+  public int attendeeCount;
+
+  // Whether every event, including the one written, has the same title.
+  @Param({"false", "true"})
+  public boolean repeatedTitles;
+
+  private CalendarStore store;
+  private Event event;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    List<String> people = CalendarGenerator.people("Person", attendeeCount);
+    Collection<Event> events = CalendarGenerator.events(random, people, EVENTS_PER_ATTENDEE, 0.2);
+    List<Event> stored = new ArrayList<>(events.size());
+    for (Event generated : events) {
+      stored.add(repeatedTitles
+          ? new Event(REPEATED_TITLE, generated.getWhen(), generated.getAttendees())
+          : generated);
+    }
+    store = new CalendarStore(stored);
+    event = new Event(repeatedTitles ? REPEATED_TITLE : "Benchmark event",
+        TimeRange.fromStartDuration(600, 30),
+        Arrays.asList(people.get(0), people.get(attendeeCount / 2)));
+  }
+
+  @Benchmark
+  public boolean addAndRemove() {
+    store.addEvent(event);
+    return store.removeEvent(event);
+  }
+}
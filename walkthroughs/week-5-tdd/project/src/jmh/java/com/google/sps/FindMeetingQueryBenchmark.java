@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FindMeetingQuery#query} end to end on generated calendars. Besides the invited
+ * attendees, as many uninvited people have events of their own, so the query also has to skip
+ * events that don't matter to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  private static final long DURATION_30_MINUTES = 30;
+
+  @Param({"2", "10", "50"})
+  public int attendeeCount;
+
+  @Param({"4", "16"})
+  public int eventsPerAttendee;
+
+  @Param({"0.2", "0.8"})
+  public double overlapDensity;
+
+  @Param({"0", "0.5"})
+  public double optionalRatio;
+
+  private Collection<Event> events;
+  private AttendeeCalendar calendar;
+  private MeetingRequest request;
+  private FindMeetingQuery findMeetingQuery;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    List<String> invited = CalendarGenerator.people("Invited", attendeeCount);
+    List<String> others = CalendarGenerator.people("Other", attendeeCount);
+
+    List<Event> allEvents = new ArrayList<>();
+    allEvents.addAll(CalendarGenerator.events(random, invited, eventsPerAttendee, overlapDensity));
+    allEvents.addAll(CalendarGenerator.events(random, others, eventsPerAttendee, overlapDensity));
+
+    events = allEvents;
+    calendar = new AttendeeCalendarIndex(allEvents);
+    request = CalendarGenerator.request(invited, optionalRatio, DURATION_30_MINUTES);
+    findMeetingQuery = new FindMeetingQuery();
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryEvents() {
+    return findMeetingQuery.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryCalendar() {
+    return findMeetingQuery.query(calendar, request);
+  }
+
+  @Benchmark
+  public TimeRange queryCalendarEarliest() {
+    return findMeetingQuery.queryLazily(calendar, request).findFirst().orElse(null);
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures merging busy intervals on its own. {@link IntervalSweep#merge} sorts its arrays in
+ * place, so every call works on fresh copies; {@link #copyOnly} measures what the copying costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntervalSweepBenchmark {
+  @Param({"16", "256", "4096"})
+  public int intervalCount;
+
+  private int[] starts;
+  private int[] ends;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    starts = new int[intervalCount];
+    ends = new int[intervalCount];
+    for (int i = 0; i < intervalCount; i++) {
+      starts[i] = random.nextInt(TimeRange.WHOLE_DAY.duration() - 60);
+      ends[i] = starts[i] + 15 + random.nextInt(46);
+    }
+  }
+
+  @Benchmark
+  public int merge() {
+    return IntervalSweep.merge(Arrays.copyOf(starts, intervalCount),
+        Arrays.copyOf(ends, intervalCount), intervalCount);
+  }
+
+  @Benchmark
+  public int copyOnly() {
+    return Arrays.copyOf(starts, intervalCount).length + Arrays.copyOf(ends, intervalCount).length;
+  }
+}
@@ -0,0 +1,173 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts how many people could attend a meeting for every possible start time, without trying
+ * every subset of the attendees.
+ *
+ * <p>Someone can attend a meeting starting at {@code t} when {@code [t, t + duration)} fits inside
+ * one of their free gaps, so each gap {@code [s, e)} that is long enough allows the starts
+ * {@code s} through {@code e - duration}. Every attendee adds one opening and one closing per gap
+ * with their weight. Sorting the openings and closings and keeping a running total gives the
+ * attendance for every start time in a single sweep.
+ */
+final class AttendanceSweep {
+  private final int from;
+  private final int to;
+  private final int duration;
+
+  // Each change is packed as (position << 32 | weight) so that sorting orders them by position.
+  private long[] openings = new long[16];
+  private long[] closings = new long[16];
+  private int size;
+  private boolean sorted;
+  // The busy intervals the gaps came from, which is what the stats count.
+  private int intervals;
+
+  /**
+   * Creates a sweep for meetings of {@code duration} minutes within {@code [from, to)}.
+   */
+  AttendanceSweep(int from, int to, long duration) {
+    this.from = from;
+    this.to = to;
+    // A meeting needs at least a minute of free time to be placed anywhere.
+    this.duration = (int) Math.max(duration, 1);
+  }
+
+  /**
+   * Adds someone whose busy times are {@code busy}. They count {@code weight} towards the
+   * attendance of every start time they can make.
+   */
+  void add(BusyIntervals busy, int weight) {
+    intervals += busy.size();
+    int free = from;
+    for (int i = 0; i < busy.size() && free < to; i++) {
+      addGap(free, Math.min(busy.start(i), to), weight);
+      free = Math.max(free, busy.end(i));
+    }
+    addGap(free, to, weight);
+  }
+
+  /**
+   * Returns the highest attendance of any start time, or 0 if nobody can make any of them.
+   */
+  int maxAttendance() {
+    sort();
+
+    long started = QueryStats.start();
+    int best = 0;
+    int attendance = 0;
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      int position = position(openings[i]);
+      // Closings at the same position happen first: the starts they allow end just before it.
+      while (position(closings[j]) <= position) {
+        attendance -= weight(closings[j++]);
+      }
+      attendance += weight(openings[i]);
+      best = Math.max(best, attendance);
+    }
+    QueryStats.record(QueryStats.Phase.SWEEP, started, intervals);
+    return best;
+  }
+
+  /**
+   * Finds the meeting times whose attendance is at least {@code minimum}, which must be positive.
+   * Neighbouring start times are combined, so each returned range is as long as possible, and any
+   * meeting that fits inside one returned range has enough attendance. Ranges can touch or overlap
+   * when different groups of people can attend them.
+   * @return the meeting times in chronological order
+   */
+  List<TimeRange> slotsWithAttendance(int minimum) {
+    sort();
+
+    long started = QueryStats.start();
+    List<TimeRange> slots = new ArrayList<>();
+    int attendance = 0;
+    int runStart = 0;
+    int i = 0;
+    int j = 0;
+    while (j < size) {
+      int position = position(closings[j]);
+      if (i < size) {
+        position = Math.min(position, position(openings[i]));
+      }
+
+      // Apply every change at this position before comparing, so that one person leaving and
+      // another joining at the same minute doesn't split the run.
+      boolean wasEnough = attendance >= minimum;
+      while (j < size && position(closings[j]) == position) {
+        attendance -= weight(closings[j++]);
+      }
+      while (i < size && position(openings[i]) == position) {
+        attendance += weight(openings[i++]);
+      }
+      boolean isEnough = attendance >= minimum;
+
+      if (!wasEnough && isEnough) {
+        runStart = position;
+      } else if (wasEnough && !isEnough) {
+        // The last start in the run is just before the closing position.
+        slots.add(TimeRange.fromStartEnd(runStart, position - 1 + duration, false));
+      }
+    }
+    QueryStats.record(QueryStats.Phase.SWEEP, started, intervals);
+    return slots;
+  }
+
+  /**
+   * Records that someone with {@code weight} can start a meeting anywhere it fits in
+   * {@code [start, end)}.
+   */
+  private void addGap(int start, int end, int weight) {
+    if (end - start < duration) return;
+
+    sorted = false;
+    if (size == openings.length) {
+      openings = Arrays.copyOf(openings, size * 2);
+      closings = Arrays.copyOf(closings, size * 2);
+    }
+    openings[size] = pack(start, weight);
+    closings[size] = pack(end - duration + 1, weight);
+    size++;
+  }
+
+  private void sort() {
+    if (sorted) return;
+
+    long started = QueryStats.start();
+    Arrays.sort(openings, 0, size);
+    Arrays.sort(closings, 0, size);
+    QueryStats.record(QueryStats.Phase.SORT, started, intervals);
+    sorted = true;
+  }
+
+  private static long pack(int position, int weight) {
+    return ((long) position << 32) | weight;
+  }
+
+  private static int position(long change) {
+    return (int) (change >> 32);
+  }
+
+  private static int weight(long change) {
+    return (int) change;
+  }
+}
@@ -0,0 +1,49 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+/**
+ * Anything that can report when each attendee is busy during the day. The implementations live in
+ * this package because the busy times are handed out in an internal format.
+ */
+public abstract class AttendeeCalendar {
+  AttendeeCalendar() {
+    // Only classes in this package can be calendars.
+  }
+
+  /**
+   * Returns the merged busy intervals of {@code attendee}, or an empty list if they have no
+   * events. The result must not change afterwards, even if the calendar does.
+   */
+  abstract BusyIntervals getBusyIntervals(String attendee);
+
+  /**
+   * Returns a stamp that changes whenever the busy times of {@code attendee} change. Calendars
+   * that never change always return 0.
+   */
+  long getVersion(String attendee) {
+    return 0;
+  }
+
+  /**
+   * Returns a calendar that answers every lookup as of the moment this was called, so that a
+   * query reading several attendees never sees a change halfway through. Calendars that never
+   * change return themselves.
+   */
+  public AttendeeCalendar snapshot() {
+    return this;
+  }
+}
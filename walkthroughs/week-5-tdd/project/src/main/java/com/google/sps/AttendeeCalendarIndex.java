@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An inverted index from each attendee to the times they are busy. Building the index walks every
+ * event once; afterwards a query only has to look at the calendars of the people it invites.
+ * Indexes are read-only and safe to share between threads.
+ */
+public final class AttendeeCalendarIndex extends AttendeeCalendar {
+  // Numbers the attendees of this index's events only, so the names go away with the index.
+  private final AttendeeIds ids = new AttendeeIds();
+
+  // Indexed by ID. Attendees with a null slot are never busy.
+  private final BusyIntervals[] busyById;
+
+  /**
+   * Creates an index over {@code events}.
+   *
+   * @param events The events that keep their attendees busy. Must be non-null.
+   */
+  public AttendeeCalendarIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty array instead.");
+    }
+
+    IntervalList[] intervalsById = new IntervalList[0];
+    for (Event event : events) {
+      long when = event.getPackedWhen();
+      // An event without a duration doesn't keep anybody busy
+      if (PackedTimeRange.duration(when) <= 0) continue;
+
+      int[] attendeeIds = ids.internAll(event.getAttendees());
+      if (attendeeIds.length == 0) continue;
+
+      // The IDs are sorted, so the last one is the largest.
+      int largestId = attendeeIds[attendeeIds.length - 1];
+      if (largestId >= intervalsById.length) {
+        intervalsById = Arrays.copyOf(intervalsById, Math.max(largestId + 1,
+            intervalsById.length * 2));
+      }
+
+      for (int id : attendeeIds) {
+        if (intervalsById[id] == null) {
+          intervalsById[id] = new IntervalList();
+        }
+        intervalsById[id].add(PackedTimeRange.start(when), PackedTimeRange.end(when));
+      }
+    }
+
+    busyById = new BusyIntervals[intervalsById.length];
+    for (int id = 0; id < intervalsById.length; id++) {
+      if (intervalsById[id] != null) {
+        busyById[id] = intervalsById[id].merge();
+      }
+    }
+  }
+
+  @Override
+  BusyIntervals getBusyIntervals(String attendee) {
+    int id = ids.find(attendee);
+    if (id == AttendeeIds.NONE || id >= busyById.length || busyById[id] == null) {
+      return BusyIntervals.EMPTY;
+    }
+    return busyById[id];
+  }
+}
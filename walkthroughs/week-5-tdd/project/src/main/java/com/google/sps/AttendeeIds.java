@@ -0,0 +1,84 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives every attendee name in one calendar a small int ID, so that the calendar can look up
+ * attendees with array indexing. IDs are dense, starting at 0. Each calendar builds its own table
+ * and drops it along with its events, so names are never kept longer than the calendar that
+ * mentions them. A table is filled by one thread and is safe to share once it is only read.
+ */
+final class AttendeeIds {
+  /** Returned by {@link #find} for a name that has never been interned. */
+  static final int NONE = -1;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+
+  /**
+   * Returns the ID of {@code name}, giving it the next free one if it doesn't have one yet.
+   */
+  int intern(String name) {
+    Integer id = ids.get(name);
+    if (id == null) {
+      id = ids.size();
+      ids.put(name, id);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the ID of {@code name}, or {@link #NONE} if it hasn't been interned. A name without an
+   * ID isn't in any of the calendar's events.
+   */
+  int find(String name) {
+    Integer id = ids.get(name);
+    return id == null ? NONE : id;
+  }
+
+  /**
+   * Interns every name.
+   * @return the IDs, sorted and without duplicates
+   */
+  int[] internAll(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      ids[count++] = intern(name);
+    }
+    Arrays.sort(ids);
+
+    // Drop duplicates in place, in case the collection wasn't a set.
+    int unique = 0;
+    for (int i = 0; i < count; i++) {
+      if (unique == 0 || ids[unique - 1] != ids[i]) {
+        ids[unique++] = ids[i];
+      }
+    }
+    return unique == count ? ids : Arrays.copyOf(ids, unique);
+  }
+
+  /**
+   * Returns how many names have an ID, which is one more than the largest ID.
+   */
+  int size() {
+    return ids.size();
+  }
+}
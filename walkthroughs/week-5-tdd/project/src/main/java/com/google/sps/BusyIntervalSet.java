@@ -0,0 +1,222 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * The busy times of one attendee, kept up to date as events are added and removed.
+ *
+ * <p>Two sorted primitive lists are maintained side by side: every event interval, packed as
+ * {@code start << 32 | end} so that sorting the longs sorts by start, and the merged busy
+ * intervals. Adding an event only merges it with the busy intervals it touches. Removing one only
+ * re-merges the event intervals inside the busy interval that contained it. Both take a binary
+ * search plus work proportional to the intervals involved, instead of a full re-merge.
+ *
+ * <p>Not thread-safe.
+ */
+final class BusyIntervalSet {
+  private long[] events = new long[4];
+  private int eventCount;
+
+  private int[] starts = new int[4];
+  private int[] ends = new int[4];
+  private int mergedCount;
+
+  // The read-only copy handed to queries, rebuilt after the next change.
+  private BusyIntervals snapshot = BusyIntervals.EMPTY;
+
+  /**
+   * Returns whether there are no events left.
+   */
+  boolean isEmpty() {
+    return eventCount == 0;
+  }
+
+  /**
+   * Records an event interval {@code [start, end)}. Empty intervals are ignored.
+   */
+  void add(int start, int end) {
+    if (start >= end) return;
+
+    long event = pack(start, end);
+    int position = firstAtOrAfter(event);
+    events = ensureCapacity(events, eventCount + 1);
+    System.arraycopy(events, position, events, position + 1, eventCount - position);
+    events[position] = event;
+    eventCount++;
+
+    // Every busy interval from the first one that ends at or after start to the last one that
+    // starts at or before end is combined with the new interval.
+    int first = firstEndingAtOrAfter(start);
+    int last = lastStartingAtOrBefore(end);
+    if (first <= last) {
+      start = Math.min(start, starts[first]);
+      end = Math.max(end, ends[last]);
+    }
+    replaceMerged(first, last + 1, new int[] {start}, new int[] {end}, 1);
+  }
+
+  /**
+   * Forgets one event interval {@code [start, end)}.
+   * @return whether the interval was found
+   */
+  boolean remove(int start, int end) {
+    if (start >= end) return false;
+
+    long event = pack(start, end);
+    int position = Arrays.binarySearch(events, 0, eventCount, event);
+    if (position < 0) return false;
+
+    System.arraycopy(events, position + 1, events, position, eventCount - position - 1);
+    eventCount--;
+
+    // Only the busy interval that held the event can change. Re-merge the events inside it.
+    int merged = lastStartingAtOrBefore(start);
+    int regionStart = starts[merged];
+    int regionEnd = ends[merged];
+
+    int from = firstStartingAtOrAfter(regionStart);
+    int to = firstStartingAtOrAfter(regionEnd);
+
+    int[] newStarts = new int[to - from];
+    int[] newEnds = new int[to - from];
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      int eventStart = start(events[i]);
+      int eventEnd = end(events[i]);
+      if (count > 0 && eventStart <= newEnds[count - 1]) {
+        newEnds[count - 1] = Math.max(newEnds[count - 1], eventEnd);
+      } else {
+        newStarts[count] = eventStart;
+        newEnds[count] = eventEnd;
+        count++;
+      }
+    }
+    replaceMerged(merged, merged + 1, newStarts, newEnds, count);
+    return true;
+  }
+
+  /**
+   * Returns a read-only copy of the merged busy intervals.
+   */
+  BusyIntervals getBusyIntervals() {
+    if (snapshot == null) {
+      snapshot = BusyIntervals.copyOf(starts, ends, mergedCount);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Replaces the merged intervals in {@code [from, to)} with the first {@code count} intervals of
+   * {@code newStarts} and {@code newEnds}.
+   */
+  private void replaceMerged(int from, int to, int[] newStarts, int[] newEnds, int count) {
+    int newCount = mergedCount - (to - from) + count;
+    starts = ensureCapacity(starts, newCount);
+    ends = ensureCapacity(ends, newCount);
+
+    System.arraycopy(starts, to, starts, from + count, mergedCount - to);
+    System.arraycopy(ends, to, ends, from + count, mergedCount - to);
+    System.arraycopy(newStarts, 0, starts, from, count);
+    System.arraycopy(newEnds, 0, ends, from, count);
+    mergedCount = newCount;
+    snapshot = null;
+  }
+
+  /**
+   * Returns the index of the first merged interval whose end is at or after {@code point}, or
+   * {@code mergedCount} if there is none.
+   */
+  private int firstEndingAtOrAfter(int point) {
+    int low = 0;
+    int high = mergedCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ends[middle] < point) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the last merged interval whose start is at or before {@code point}, or -1
+   * if there is none.
+   */
+  private int lastStartingAtOrBefore(int point) {
+    int low = 0;
+    int high = mergedCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] <= point) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * Returns the index of the first event that starts at or after {@code point}.
+   */
+  private int firstStartingAtOrAfter(int point) {
+    // No event sorts before this key unless it starts before point.
+    return firstAtOrAfter((long) point << 32);
+  }
+
+  /**
+   * Returns the index of the first event that sorts at or after {@code key}, which is also where
+   * {@code key} would be inserted to keep the event list sorted.
+   */
+  private int firstAtOrAfter(long key) {
+    int low = 0;
+    int high = eventCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (events[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static int[] ensureCapacity(int[] array, int capacity) {
+    if (capacity <= array.length) return array;
+    return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+  }
+
+  private static long[] ensureCapacity(long[] array, int capacity) {
+    if (capacity <= array.length) return array;
+    return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+  }
+
+  private static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  private static int start(long event) {
+    return (int) (event >> 32);
+  }
+
+  private static int end(long event) {
+    return (int) event;
+  }
+}
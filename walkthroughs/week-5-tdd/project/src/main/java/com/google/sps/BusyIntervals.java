@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * A read-only list of the times one attendee is busy. The intervals are merged, so they never
+ * overlap or touch, and they are sorted by start time.
+ */
+final class BusyIntervals {
+  static final BusyIntervals EMPTY = new BusyIntervals(new int[0], new int[0], 0);
+
+  private final int[] starts;
+  private final int[] ends;
+
+  // Built on first use by the minute bitmap strategy. Building it twice from two threads is
+  // harmless because both copies are identical.
+  private volatile long[] minuteMask;
+
+  private BusyIntervals(int[] starts, int[] ends, int size) {
+    this.starts = starts.length == size ? starts : Arrays.copyOf(starts, size);
+    this.ends = ends.length == size ? ends : Arrays.copyOf(ends, size);
+  }
+
+  /**
+   * Merges the first {@code count} intervals and wraps the result. The arrays are reused, so the
+   * caller must not change them afterwards.
+   * @param starts the inclusive starts of the intervals, in any order
+   * @param ends the exclusive ends of the intervals, in any order
+   * @param count the number of intervals in use at the front of the arrays
+   */
+  static BusyIntervals merge(int[] starts, int[] ends, int count) {
+    if (count == 0) {
+      return EMPTY;
+    }
+    int merged = IntervalSweep.merge(starts, ends, count);
+    return new BusyIntervals(starts, ends, merged);
+  }
+
+  /**
+   * Copies the first {@code count} intervals, which must already be merged and sorted.
+   */
+  static BusyIntervals copyOf(int[] starts, int[] ends, int count) {
+    if (count == 0) {
+      return EMPTY;
+    }
+    return new BusyIntervals(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), count);
+  }
+
+  /**
+   * Returns the number of intervals.
+   */
+  int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns the inclusive start of the interval at {@code index}.
+   */
+  int start(int index) {
+    return starts[index];
+  }
+
+  /**
+   * Returns the exclusive end of the interval at {@code index}.
+   */
+  int end(int index) {
+    return ends[index];
+  }
+
+  /**
+   * Copies every interval into {@code starts} and {@code ends} beginning at {@code offset}.
+   * @return the offset just past the last copied interval
+   */
+  int copyTo(int[] starts, int[] ends, int offset) {
+    System.arraycopy(this.starts, 0, starts, offset, this.starts.length);
+    System.arraycopy(this.ends, 0, ends, offset, this.ends.length);
+    return offset + this.starts.length;
+  }
+
+  /**
+   * Returns these intervals as a {@link MinuteBitmap} mask. The mask is shared, so the caller must
+   * not change it.
+   */
+  long[] minuteMask() {
+    long[] mask = minuteMask;
+    if (mask == null) {
+      mask = MinuteBitmap.of(this);
+      minuteMask = mask;
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,278 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only calendar stored in a compact binary file and read through a memory-mapped buffer.
+ * Opening a snapshot only checks its header, and nothing is turned into {@link Event} objects:
+ * each query reads the few attendee and event records it needs straight from the mapped file. The
+ * operating system pages the file in on demand and can share it between processes, so startup
+ * time and heap use hardly grow with the number of events.
+ *
+ * <p>A snapshot only holds what scheduling needs: attendee names, event times and who attends
+ * which event. Event titles are not kept. All numbers are big-endian, laid out as:
+ *
+ * <pre>
+ * int     magic ("CALS") and format version
+ * int     attendee count A, event count E, membership count M, name byte count N
+ * int[A+1] offsets of each attendee's name in the name bytes
+ * byte[N]  the names in UTF-8, sorted by their bytes so they can be binary searched
+ * long[E]  the events' times packed by {@link PackedTimeRange}, sorted by start
+ * int[A+1] offsets of each attendee's membership list
+ * int[M]   the events each attendee attends, as indexes into the event times, in ascending order
+ * </pre>
+ *
+ * <p>Snapshots are safe to share between threads. The mapping can't be larger than 2 GB.
+ */
+public final class CalendarSnapshot extends AttendeeCalendar {
+  private static final int MAGIC = 0x43414C53;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+  private final ByteBuffer buffer;
+  private final int attendeeCount;
+  private final int nameOffsetsAt;
+  private final int namesAt;
+  private final int eventsAt;
+  private final int membershipOffsetsAt;
+  private final int membershipsAt;
+
+  private CalendarSnapshot(ByteBuffer buffer) throws IOException {
+    if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a calendar snapshot");
+    }
+
+    if (buffer.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Unsupported calendar snapshot version " + buffer.getInt(4));
+    }
+
+    this.buffer = buffer;
+    this.attendeeCount = buffer.getInt(8);
+    int eventCount = buffer.getInt(12);
+    int membershipCount = buffer.getInt(16);
+    int nameBytes = buffer.getInt(20);
+
+    // Work out where each section starts. Sizes are summed as longs so that a corrupt header is
+    // reported instead of overflowing.
+    long nameOffsetsAt = HEADER_BYTES;
+    long namesAt = nameOffsetsAt + (attendeeCount + 1L) * Integer.BYTES;
+    long eventsAt = namesAt + nameBytes;
+    long membershipOffsetsAt = eventsAt + (long) eventCount * Long.BYTES;
+    long membershipsAt = membershipOffsetsAt + (attendeeCount + 1L) * Integer.BYTES;
+    long end = membershipsAt + (long) membershipCount * Integer.BYTES;
+    if (attendeeCount < 0 || eventCount < 0 || membershipCount < 0 || nameBytes < 0
+        || end != buffer.capacity()) {
+      throw new IOException("Calendar snapshot is truncated or corrupt");
+    }
+
+    this.nameOffsetsAt = (int) nameOffsetsAt;
+    this.namesAt = (int) namesAt;
+    this.eventsAt = (int) eventsAt;
+    this.membershipOffsetsAt = (int) membershipOffsetsAt;
+    this.membershipsAt = (int) membershipsAt;
+  }
+
+  /**
+   * Maps the snapshot at {@code path} into memory. The file must not change while the snapshot is
+   * in use.
+   * @throws IOException if the file can't be read or isn't a calendar snapshot
+   */
+  public static CalendarSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Calendar snapshot is larger than 2 GB");
+      }
+      // The mapping stays valid after the channel is closed.
+      return new CalendarSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes a snapshot of {@code events} to {@code path}, replacing any file already there. Events
+   * without a duration are left out because they don't keep anybody busy.
+   *
+   * @param events The events to store. Must be non-null.
+   * @param path Where to write the snapshot. Must be non-null.
+   */
+  public static void write(Collection<Event> events, Path path) throws IOException {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty array instead.");
+    }
+
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    List<Event> busyEvents = new ArrayList<>(events.size());
+    for (Event event : events) {
+      if (PackedTimeRange.duration(event.getPackedWhen()) > 0) {
+        busyEvents.add(event);
+      }
+    }
+    busyEvents.sort(Comparator.comparingLong(Event::getPackedWhen));
+
+    // Number the attendees in the order of their encoded names.
+    Map<String, byte[]> encodedNames = new HashMap<>();
+    for (Event event : busyEvents) {
+      for (String attendee : event.getAttendees()) {
+        encodedNames.computeIfAbsent(attendee, name -> name.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    List<Map.Entry<String, byte[]>> sortedNames = new ArrayList<>(encodedNames.entrySet());
+    sortedNames.sort((a, b) -> compareBytes(a.getValue(), b.getValue()));
+    byte[][] names = new byte[sortedNames.size()][];
+    Map<String, Integer> indexByName = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      names[i] = sortedNames.get(i).getValue();
+      indexByName.put(sortedNames.get(i).getKey(), i);
+    }
+
+    // Lay the membership lists out one after another: count them, then fill them in. Events are
+    // visited in order, so every list comes out in ascending order.
+    int[] membershipOffsets = new int[names.length + 1];
+    for (Event event : busyEvents) {
+      for (String attendee : event.getAttendees()) {
+        membershipOffsets[indexByName.get(attendee) + 1]++;
+      }
+    }
+    for (int i = 0; i < names.length; i++) {
+      membershipOffsets[i + 1] += membershipOffsets[i];
+    }
+    int[] memberships = new int[membershipOffsets[names.length]];
+    int[] filled = Arrays.copyOf(membershipOffsets, names.length);
+    for (int i = 0; i < busyEvents.size(); i++) {
+      for (String attendee : busyEvents.get(i).getAttendees()) {
+        memberships[filled[indexByName.get(attendee)]++] = i;
+      }
+    }
+
+    int nameBytes = 0;
+    for (byte[] name : names) {
+      nameBytes += name.length;
+    }
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(names.length);
+      out.writeInt(busyEvents.size());
+      out.writeInt(memberships.length);
+      out.writeInt(nameBytes);
+
+      int nameOffset = 0;
+      out.writeInt(nameOffset);
+      for (byte[] name : names) {
+        nameOffset += name.length;
+        out.writeInt(nameOffset);
+      }
+      for (byte[] name : names) {
+        out.write(name);
+      }
+      for (Event event : busyEvents) {
+        out.writeLong(event.getPackedWhen());
+      }
+      for (int offset : membershipOffsets) {
+        out.writeInt(offset);
+      }
+      for (int event : memberships) {
+        out.writeInt(event);
+      }
+    }
+  }
+
+  @Override
+  BusyIntervals getBusyIntervals(String attendee) {
+    int index = find(attendee.getBytes(StandardCharsets.UTF_8));
+    if (index < 0) return BusyIntervals.EMPTY;
+
+    int from = buffer.getInt(membershipOffsetsAt + index * Integer.BYTES);
+    int to = buffer.getInt(membershipOffsetsAt + (index + 1) * Integer.BYTES);
+    int count = to - from;
+    int[] starts = new int[count];
+    int[] ends = new int[count];
+    for (int i = 0; i < count; i++) {
+      int event = buffer.getInt(membershipsAt + (from + i) * Integer.BYTES);
+      long when = buffer.getLong(eventsAt + event * Long.BYTES);
+      starts[i] = PackedTimeRange.start(when);
+      ends[i] = PackedTimeRange.end(when);
+    }
+    return BusyIntervals.merge(starts, ends, count);
+  }
+
+  /**
+   * Returns the index of the attendee whose encoded name is {@code name}, or -1 if there is none.
+   */
+  private int find(byte[] name) {
+    int low = 0;
+    int high = attendeeCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareName(middle, name);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compares the stored name of attendee {@code index} with {@code name}, byte by byte.
+   */
+  private int compareName(int index, byte[] name) {
+    int from = namesAt + buffer.getInt(nameOffsetsAt + index * Integer.BYTES);
+    int to = namesAt + buffer.getInt(nameOffsetsAt + (index + 1) * Integer.BYTES);
+    int length = Math.min(to - from, name.length);
+    for (int i = 0; i < length; i++) {
+      int comparison = Integer.compare(buffer.get(from + i) & 0xFF, name[i] & 0xFF);
+      if (comparison != 0) return comparison;
+    }
+    return Integer.compare(to - from, name.length);
+  }
+
+  /**
+   * Orders byte arrays the way {@link #compareName} does, treating bytes as unsigned.
+   */
+  private static int compareBytes(byte[] a, byte[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (comparison != 0) return comparison;
+    }
+    return Integer.compare(a.length, b.length);
+  }
+}
@@ -0,0 +1,263 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A calendar whose events can change while it is being queried. Each attendee's merged busy
+ * intervals are updated in place when an event is added or removed, so a change only costs work
+ * proportional to the busy intervals it touches rather than a rebuild of every calendar.
+ *
+ * <p>Readers never take a lock. Every change, or batch of changes made with {@link #update},
+ * publishes a new immutable {@link #snapshot} through a volatile field, and reads are answered
+ * from whichever snapshot was current when they started. A query that takes one snapshot up front
+ * sees either all of a batch or none of it. Snapshots are built on {@link PersistentMap}s, so
+ * publishing one only copies the paths to the entries that changed and shares the rest with the
+ * previous snapshot: a write costs about the same however many attendees and events are stored.
+ * Writers are serialized. All methods are safe to call from multiple threads.
+ */
+public final class CalendarStore extends AttendeeCalendar {
+  // The writers' working state, only touched while holding the lock on this store. Each event maps
+  // to the order it was added in, so that listing them is stable.
+  private PersistentMap<Event, Long> events = PersistentMap.empty();
+  private long lastSequence;
+  private final Map<String, BusyIntervalSet> busyByAttendee = new HashMap<>();
+
+  // Versions come from one counter so that a stamp is never reused, even after someone's last
+  // event is removed.
+  private long lastVersion;
+
+  // What readers see.
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  /**
+   * Creates an empty store.
+   */
+  public CalendarStore() {}
+
+  /**
+   * Creates a store holding {@code events}.
+   *
+   * @param events The initial events. Must be non-null.
+   */
+  public CalendarStore(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty array instead.");
+    }
+
+    update(events, Collections.emptyList());
+  }
+
+  /**
+   * Adds an event, making its attendees busy for its duration.
+   * @return whether the event was added; {@code false} if an equal event is already stored
+   */
+  public synchronized boolean addEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    Set<String> changed = new HashSet<>();
+    if (!add(event, changed)) return false;
+
+    publish(changed);
+    return true;
+  }
+
+  /**
+   * Removes an event, freeing up its attendees unless they have other events at the same time.
+   * @return whether the event was found
+   */
+  public synchronized boolean removeEvent(Event event) {
+    Set<String> changed = new HashSet<>();
+    if (event == null || !remove(event, changed)) return false;
+
+    publish(changed);
+    return true;
+  }
+
+  /**
+   * Removes and adds several events as one change. Readers see either none of it or all of it.
+   * Events to remove that aren't stored and events to add that already are are skipped.
+   *
+   * @param added The events to add. Must be non-null.
+   * @param removed The events to remove, which are removed before any are added. Must be non-null.
+   */
+  public synchronized void update(Collection<Event> added, Collection<Event> removed) {
+    if (added == null || removed == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty array instead.");
+    }
+
+    // Check everything before changing anything, so that a bad batch leaves the store alone.
+    for (Event event : added) {
+      if (event == null) {
+        throw new IllegalArgumentException("event cannot be null");
+      }
+    }
+
+    Set<String> changed = new HashSet<>();
+    for (Event event : removed) {
+      if (event != null) {
+        remove(event, changed);
+      }
+    }
+    for (Event event : added) {
+      add(event, changed);
+    }
+    publish(changed);
+  }
+
+  /**
+   * Returns a read-only list of every stored event, in the order they were added. The same list
+   * is returned until the events change, so callers can cache anything they derive from it. The
+   * list is built the first time it is asked for after a change, so writes don't pay for it.
+   */
+  public List<Event> getEvents() {
+    return snapshot.getEvents();
+  }
+
+  /**
+   * Returns the calendar as it is right now. Later changes to the store don't affect it.
+   */
+  @Override
+  public AttendeeCalendar snapshot() {
+    return snapshot;
+  }
+
+  @Override
+  BusyIntervals getBusyIntervals(String attendee) {
+    return snapshot.getBusyIntervals(attendee);
+  }
+
+  @Override
+  long getVersion(String attendee) {
+    return snapshot.getVersion(attendee);
+  }
+
+  private boolean add(Event event, Set<String> changed) {
+    if (events.get(event) != null) return false;
+    events = events.with(event, ++lastSequence);
+
+    TimeRange when = event.getWhen();
+    for (String attendee : event.getAttendees()) {
+      busyByAttendee.computeIfAbsent(attendee, name -> new BusyIntervalSet())
+          .add(when.start(), when.end());
+      changed.add(attendee);
+    }
+    return true;
+  }
+
+  private boolean remove(Event event, Set<String> changed) {
+    PersistentMap<Event, Long> remaining = events.without(event);
+    if (remaining == events) return false;
+    events = remaining;
+
+    TimeRange when = event.getWhen();
+    for (String attendee : event.getAttendees()) {
+      BusyIntervalSet busy = busyByAttendee.get(attendee);
+      busy.remove(when.start(), when.end());
+      if (busy.isEmpty()) {
+        busyByAttendee.remove(attendee);
+      }
+      changed.add(attendee);
+    }
+    return true;
+  }
+
+  /**
+   * Publishes a new snapshot in which the busy times and versions of the {@code changed}
+   * attendees are brought up to date. Everyone else's entries are shared with the old snapshot.
+   */
+  private void publish(Set<String> changed) {
+    Snapshot previous = snapshot;
+    PersistentMap<String, BusyIntervals> busy = previous.busyByAttendee;
+    PersistentMap<String, Long> versions = previous.versionByAttendee;
+
+    long version = ++lastVersion;
+    for (String attendee : changed) {
+      BusyIntervalSet intervals = busyByAttendee.get(attendee);
+      if (intervals == null) {
+        busy = busy.without(attendee);
+      } else {
+        busy = busy.with(attendee, intervals.getBusyIntervals());
+      }
+      versions = versions.with(attendee, version);
+    }
+
+    snapshot = new Snapshot(busy, versions, events);
+  }
+
+  /** The store's contents at one point in time. Never changes once published. */
+  private static final class Snapshot extends AttendeeCalendar {
+    private static final Snapshot EMPTY = new Snapshot(
+        PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+
+    private final PersistentMap<String, BusyIntervals> busyByAttendee;
+    private final PersistentMap<String, Long> versionByAttendee;
+    private final PersistentMap<Event, Long> events;
+
+    // The events in the order they were added, built on first use.
+    private volatile List<Event> eventList;
+
+    private Snapshot(PersistentMap<String, BusyIntervals> busyByAttendee,
+        PersistentMap<String, Long> versionByAttendee, PersistentMap<Event, Long> events) {
+      this.busyByAttendee = busyByAttendee;
+      this.versionByAttendee = versionByAttendee;
+      this.events = events;
+    }
+
+    @Override
+    BusyIntervals getBusyIntervals(String attendee) {
+      BusyIntervals busy = busyByAttendee.get(attendee);
+      return busy == null ? BusyIntervals.EMPTY : busy;
+    }
+
+    @Override
+    long getVersion(String attendee) {
+      Long version = versionByAttendee.get(attendee);
+      return version == null ? 0 : version;
+    }
+
+    private List<Event> getEvents() {
+      List<Event> list = eventList;
+      if (list != null) {
+        return list;
+      }
+
+      // Build it once, so that every caller gets the same list for this snapshot.
+      synchronized (this) {
+        list = eventList;
+        if (list != null) {
+          return list;
+        }
+
+        TreeMap<Long, Event> byOrder = new TreeMap<>();
+        events.forEach((event, sequence) -> byOrder.put(sequence, event));
+        list = Collections.unmodifiableList(new ArrayList<>(byOrder.values()));
+        eventList = list;
+        return list;
+      }
+    }
+  }
+}
@@ -28,6 +28,14 @@ public final class Event {
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
 
+  // The same data in the forms the query code reads: the time packed into one long and the
+  // attendees as an array, which is quicker to walk than the set. Transient so that they are never
+  // sent as JSON.
+  private final transient long packedWhen;
+  private final transient String[] attendeeArray;
+  // Events are used as hash keys, so the hash is worked out once.
+  private final transient int hash;
+
   /**
    * Creates a new event.
    *
@@ -51,6 +59,9 @@ public final class Event {
     this.title = title;
     this.when = when;
     this.attendees.addAll(attendees);
+    this.packedWhen = PackedTimeRange.pack(when);
+    this.attendeeArray = this.attendees.toArray(new String[0]);
+    this.hash = 31 * (31 * title.hashCode() + when.hashCode()) + this.attendees.hashCode();
   }
 
   /**
@@ -76,11 +87,25 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns when this event occurs, packed by {@link PackedTimeRange}.
+   */
+  long getPackedWhen() {
+    return packedWhen;
+  }
+
+  /**
+   * Returns the attendees as an array, without duplicates. Callers must not modify the array.
+   */
+  String[] getAttendeeArray() {
+    return attendeeArray;
+  }
+
   @Override
   public int hashCode() {
-    // For the hash code, just use the title. Most events "should" have different names and will
-    // mainly be used as a way to skip the costly {@code equals()} call.
-    return title.hashCode();
+    // Hash everything {@code equals()} compares. Titles alone collide whenever a calendar has many
+    // events with the same name, such as a daily standup.
+    return hash;
   }
 
   @Override
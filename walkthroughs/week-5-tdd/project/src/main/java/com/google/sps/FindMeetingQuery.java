@@ -14,16 +14,52 @@
 
 package com.google.sps;
 
-import java.lang.Math;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class FindMeetingQuery {
+  /**
+   * How busy times are turned into available times. Both strategies give identical results.
+   */
+  public enum Strategy {
+    /** Sorts the busy intervals and sweeps over them. Works for any number of events. */
+    INTERVAL_SWEEP,
+
+    /**
+     * Marks busy minutes in a bitmap of the day and scans it for free runs. Nothing needs to be
+     * sorted, which makes it the faster choice for large groups.
+     */
+    MINUTE_BITMAP
+  }
+
+  private final Strategy strategy;
+
+  /**
+   * Creates a query that uses the {@link Strategy#INTERVAL_SWEEP} strategy.
+   */
+  public FindMeetingQuery() {
+    this(Strategy.INTERVAL_SWEEP);
+  }
+
+  /**
+   * Creates a query that finds available times with the given strategy.
+   */
+  public FindMeetingQuery(Strategy strategy) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("strategy cannot be null");
+    }
+
+    this.strategy = strategy;
+  }
+
   /**
    * Determine available times for a meeting to take place given a list of Events and a
    * Meeting Request.
@@ -32,31 +68,318 @@ public final class FindMeetingQuery {
    * @return A list of available TimeRanges
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    if (strategy == Strategy.MINUTE_BITMAP) {
+      return query(request,
+          (attendees, duration) -> findAvailableMinutes(events, attendees, duration));
+    }
+    return query(request, (attendees, duration) -> findAvailableTimes(events, attendees, duration));
+  }
+
+  /**
+   * Determine available times for a meeting to take place given a calendar of everyone's busy
+   * times and a Meeting Request. Only the calendars of the requested attendees are read.
+   * @param calendar the busy times of every attendee
+   * @param request the meeting request with meeting attendees and duration
+   * @return A list of available TimeRanges
+   */
+  public Collection<TimeRange> query(AttendeeCalendar calendar, MeetingRequest request) {
+    // Read every attendee as of the same moment, even if the calendar is being changed
+    AttendeeCalendar snapshot = calendar.snapshot();
+    if (strategy == Strategy.MINUTE_BITMAP) {
+      return query(request,
+          (attendees, duration) -> findAvailableMinutes(snapshot, attendees, duration));
+    }
+    return query(request,
+        (attendees, duration) -> findAvailableTimes(snapshot, attendees, duration));
+  }
+
+  /**
+   * Determine available times for a meeting within a window that can span many days. Unlike the
+   * single-day queries, the meeting can be longer than a day.
+   * @param calendar the busy times of every attendee, in epoch minutes
+   * @param request the meeting request with meeting attendees and duration
+   * @param window the span of time to search, in epoch minutes
+   * @return A list of available TimeRanges in epoch minutes
+   */
+  public Collection<TimeRange> query(HorizonCalendar calendar, MeetingRequest request,
+      TimeRange window) {
+    return query(request, window,
+        (attendees, duration) -> findAvailableTimes(calendar, window, attendees, duration));
+  }
+
+  /**
+   * Lazily determine the available times for a meeting, earliest first. Times are only worked out
+   * as the stream is consumed, so {@code queryLazily(events, request).findFirst()} or
+   * {@code .limit(3)} stops as soon as enough times are found. The stream holds the same times as
+   * {@link #query(Collection, MeetingRequest)}, whichever strategy this query was created with.
+   * @param events the list of events to take into consideration when finding available times
+   * @param request the meeting request with meeting attendees and duration
+   * @return a Stream of available TimeRanges in chronological order
+   */
+  public Stream<TimeRange> queryLazily(Collection<Event> events, MeetingRequest request) {
+    return queryLazily(request, (attendees, duration) -> freeTimesOf(events, attendees, duration));
+  }
+
+  /**
+   * Lazily determine the available times for a meeting, earliest first, reading everyone's busy
+   * times from a calendar. The attendees' calendars are merged only as far as the times that are
+   * consumed.
+   * @param calendar the busy times of every attendee
+   * @param request the meeting request with meeting attendees and duration
+   * @return a Stream of available TimeRanges in chronological order
+   * @see #queryLazily(Collection, MeetingRequest)
+   */
+  public Stream<TimeRange> queryLazily(AttendeeCalendar calendar, MeetingRequest request) {
+    // Read every attendee as of the same moment, even if the calendar is being changed
+    AttendeeCalendar snapshot = calendar.snapshot();
+    return queryLazily(request,
+        (attendees, duration) -> freeTimesOf(snapshot, attendees, duration));
+  }
+
+  /**
+   * Determine the times when at least the requested number of attendees are free.
+   * @param events the list of events to take into consideration when finding available times
+   * @param request the meeting request with attendees, quorum and duration
+   * @return A list of TimeRanges, which can overlap when different groups of attendees are free
+   *     for them
+   */
+  public Collection<TimeRange> query(Collection<Event> events, QuorumMeetingRequest request) {
+    return query(new AttendeeCalendarIndex(events), request);
+  }
+
+  /**
+   * Determine the times when at least the requested number of attendees are free, reading
+   * everyone's busy times from a calendar.
+   * @param calendar the busy times of every attendee
+   * @param request the meeting request with attendees, quorum and duration
+   * @return A list of TimeRanges, which can overlap when different groups of attendees are free
+   *     for them
+   */
+  public Collection<TimeRange> query(AttendeeCalendar calendar, QuorumMeetingRequest request) {
+    // Meeting cannot last longer than 24 hours
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) return Arrays.asList();
+
+    // Nobody has to come, so any time works
+    if (request.getMinimumAttendees() == 0) return Arrays.asList(TimeRange.WHOLE_DAY);
+
+    // Read every attendee as of the same moment, even if the calendar is being changed
+    AttendeeCalendar snapshot = calendar.snapshot();
+    AttendanceSweep sweep = new AttendanceSweep(TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.end(), request.getDuration());
+    long started = QueryStats.start();
+    int collected = 0;
+    for (String attendee : request.getAttendees()) {
+      BusyIntervals busy = snapshot.getBusyIntervals(attendee);
+      collected += busy.size();
+      sweep.add(busy, 1);
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, collected);
+    return sweep.slotsWithAttendance(request.getMinimumAttendees());
+  }
+
+  /**
+   * Determine the times that work for every mandatory attendee and for as many optional attendees
+   * as possible. Unlike {@link #query}, the optional attendees are not all dropped when there is no
+   * time that works for every one of them; the times that the most of them can make are returned
+   * instead.
+   * @param events the list of events to take into consideration when finding available times
+   * @param request the meeting request with meeting attendees and duration
+   * @return A list of the best TimeRanges, which can overlap when different groups of optional
+   *     attendees are free for them
+   */
+  public Collection<TimeRange> queryMaximizingOptional(Collection<Event> events,
+      MeetingRequest request) {
+    return queryMaximizingOptional(new AttendeeCalendarIndex(events), request);
+  }
+
+  /**
+   * Determine the times that work for every mandatory attendee and for as many optional attendees
+   * as possible, reading everyone's busy times from a calendar.
+   * @param calendar the busy times of every attendee
+   * @param request the meeting request with meeting attendees and duration
+   * @return A list of the best TimeRanges, which can overlap when different groups of optional
+   *     attendees are free for them
+   * @see #queryMaximizingOptional(Collection, MeetingRequest)
+   */
+  public Collection<TimeRange> queryMaximizingOptional(AttendeeCalendar calendar,
+      MeetingRequest request) {
+    // Meeting cannot last longer than 24 hours
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) return Arrays.asList();
+
+    Collection<String> mandatory = request.getAttendees();
+    Collection<String> optional = request.getOptionalAttendees();
+
+    // Needs to have at least 1 attendee at a meeting
+    if (mandatory.isEmpty() && optional.isEmpty()) return Arrays.asList(TimeRange.WHOLE_DAY);
+
+    // Read every attendee as of the same moment, even if the calendar is being changed
+    AttendeeCalendar snapshot = calendar.snapshot();
+    AttendanceSweep sweep = new AttendanceSweep(TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.end(), request.getDuration());
+
+    // The mandatory attendees count as one group that outweighs every optional attendee put
+    // together, so the best times are always ones the whole group can make.
+    int mandatoryWeight = 0;
+    if (!mandatory.isEmpty()) {
+      mandatoryWeight = optional.size() + 1;
+      sweep.add(mergeBusyIntervals(snapshot, mandatory), mandatoryWeight);
+    }
+    long started = QueryStats.start();
+    int collected = 0;
+    for (String attendee : optional) {
+      BusyIntervals busy = snapshot.getBusyIntervals(attendee);
+      collected += busy.size();
+      sweep.add(busy, 1);
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, collected);
+
+    int bestAttendance = sweep.maxAttendance();
+
+    // Either the mandatory attendees can't meet, or nobody can make any time at all
+    if (bestAttendance == 0 || bestAttendance < mandatoryWeight) return Arrays.asList();
+
+    return sweep.slotsWithAttendance(bestAttendance);
+  }
+
+  /**
+   * Determine the times a meeting can take place together with a room to hold it in. If some time
+   * and room work for everyone invited, optional attendees included, those are returned, with rooms
+   * that fit everyone. Otherwise, as in {@link #query(Collection, MeetingRequest)}, the optional
+   * attendees are dropped, and the times and rooms that work for the mandatory attendees are
+   * returned instead. Each time is offered with the smallest candidate room that is free then.
+   * @param events the list of events to take into consideration, including room bookings, which
+   *     list the room's name as an attendee
+   * @param request the meeting request with meeting attendees, candidate rooms and duration
+   * @return A list of times paired with rooms, in chronological order. Times in different rooms
+   *     can overlap.
+   */
+  public List<RoomSlot> queryWithRooms(Collection<Event> events, MeetingRequest request) {
+    return queryWithRooms(new AttendeeCalendarIndex(events), request);
+  }
+
+  /**
+   * Determine the times a meeting can take place together with a room to hold it in, reading
+   * everyone's busy times, and the rooms', from a calendar.
+   * @param calendar the busy times of every attendee and room
+   * @param request the meeting request with meeting attendees, candidate rooms and duration
+   * @return A list of times paired with rooms, in chronological order. Times in different rooms
+   *     can overlap.
+   * @see #queryWithRooms(Collection, MeetingRequest)
+   */
+  public List<RoomSlot> queryWithRooms(AttendeeCalendar calendar, MeetingRequest request) {
     // Meeting cannot last longer than 24 hours
     if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) return Arrays.asList();
 
-    Collection<TimeRange> availableTimesWithOptionalAttendees = queryHelper(events, request, true);
+    // Read every attendee as of the same moment, even if the calendar is being changed
+    AttendeeCalendar snapshot = calendar.snapshot();
+
+    Collection<String> mandatory = new HashSet<String>(request.getAttendees());
+    Collection<String> everyone = new HashSet<String>(mandatory);
+    everyone.addAll(request.getOptionalAttendees());
+    List<RoomSlot> slots = findRoomSlots(snapshot, everyone, request);
+
+    // If no time and room work with all (mandatory & optional), which can be because no room is big
+    // enough for everyone, consider mandatory
+    if (slots.isEmpty() && !mandatory.isEmpty() && everyone.size() > mandatory.size()) {
+      slots = findRoomSlots(snapshot, mandatory, request);
+    }
+
+    return slots;
+  }
+
+  /**
+   * Finds the times a group of attendees can meet in one of the candidate rooms that fits them.
+   * @param calendar the busy times of every attendee and room
+   * @param attendees the people in the group
+   * @param request the meeting request with candidate rooms and duration
+   * @return the times paired with rooms, in chronological order
+   */
+  private static List<RoomSlot> findRoomSlots(AttendeeCalendar calendar,
+    Collection<String> attendees, MeetingRequest request) {
+
+    List<Room> rooms = RoomSearch.bestFitFirst(request.getCandidateRooms(), attendees.size());
+    if (rooms.isEmpty()) return Arrays.asList();
+
+    BusyIntervals busy = mergeBusyIntervals(calendar, attendees);
+    List<TimeRange> free = freeTimesOf(busy, request.getDuration());
+    return new RoomSearch(calendar, request.getDuration()).find(busy, free, rooms);
+  }
+
+  /**
+   * Finds the available times for a MeetingRequest, falling back to only the mandatory attendees
+   * when there are no times that work for the optional attendees as well.
+   * @param request the meeting request with meeting attendees and duration
+   * @param finder looks up the available times of a group of attendees
+   * @return A list of available TimeRanges
+   */
+  private Collection<TimeRange> query(MeetingRequest request, AvailabilityFinder finder) {
+    return query(request, TimeRange.WHOLE_DAY, finder);
+  }
+
+  /**
+   * Finds the available times for a MeetingRequest within a window, falling back to only the
+   * mandatory attendees when there are no times that work for the optional attendees as well.
+   * @param request the meeting request with meeting attendees and duration
+   * @param window the span of time to search
+   * @param finder looks up the available times of a group of attendees
+   * @return A list of available TimeRanges
+   */
+  private Collection<TimeRange> query(MeetingRequest request, TimeRange window,
+    AvailabilityFinder finder) {
+
+    // Meeting cannot last longer than the window
+    if (request.getDuration() > window.duration()) return Arrays.asList();
+
+    Collection<TimeRange> availableTimesWithOptionalAttendees =
+      queryHelper(finder, request, window, true);
 
     // If there are no available times with all (mandatory & optional) consider mandatory 
     if (availableTimesWithOptionalAttendees.size() == 0 && request.getAttendees().size() > 0) {
-      return queryHelper(events, request, false);
+      return queryHelper(finder, request, window, false);
     }
 
     return availableTimesWithOptionalAttendees;
   }
 
+  /**
+   * Lazily finds the available times for a MeetingRequest. Falling back to the mandatory
+   * attendees only needs to know whether there is any time for everyone, so at most one time is
+   * looked for before deciding.
+   * @param request the meeting request with meeting attendees and duration
+   * @param finder lazily looks up the available times of a group of attendees
+   * @return a Stream of available TimeRanges in chronological order
+   */
+  private Stream<TimeRange> queryLazily(MeetingRequest request, LazyAvailabilityFinder finder) {
+    // Meeting cannot last longer than 24 hours
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) return Stream.empty();
+
+    Collection<String> attendees = new HashSet<String>(request.getAttendees());
+    attendees.addAll(request.getOptionalAttendees());
+
+    // Needs to have at least 1 attendee at a meeting
+    if (attendees.isEmpty()) return Stream.of(TimeRange.WHOLE_DAY);
+
+    Iterator<TimeRange> availableTimes = finder.find(attendees, request.getDuration());
+    if (!availableTimes.hasNext() && !request.getAttendees().isEmpty()) {
+      availableTimes = finder.find(request.getAttendees(), request.getDuration());
+    }
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(availableTimes,
+        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+  }
+
   /**
    * Helper method for the query method which finds the available times to meet given a
-   * list of events and a MeetingRequest,
-   * depending on whether optional attendees are considered or not.
-   * @param events the list of events to take into consideration when finding available times
+   * MeetingRequest, depending on whether optional attendees are considered or not.
+   * @param finder looks up the available times of a group of attendees
    * @param request the meeting request with the meeting attendees and duration
+   * @param window the span of time to search
    * @param considerOptional whether optional attendees are accounted for or not
    * @return available times for the group to meet
    *
    */
-  private Collection<TimeRange> queryHelper(Collection<Event> events, MeetingRequest request,
-    boolean considerOptional) {
+  private Collection<TimeRange> queryHelper(AvailabilityFinder finder, MeetingRequest request,
+    TimeRange window, boolean considerOptional) {
     
     Collection<String> attendees = new HashSet<String>(request.getAttendees());
     if (considerOptional) {
@@ -64,133 +387,292 @@ public final class FindMeetingQuery {
     }
     
     // Needs to have at least 1 attendee at a meeting
-    if (attendees.size() == 0) return Arrays.asList(TimeRange.WHOLE_DAY);
+    if (attendees.size() == 0) return Arrays.asList(window);
+
+    return finder.find(attendees, request.getDuration());
+  }
+
+  /**
+   * Finds the times during the day when none of the attendees are at any of the events.
+   * @param events the list of events to take into consideration when finding available times
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet
+   */
+  private static Collection<TimeRange> findAvailableTimes(Collection<Event> events,
+    Collection<String> attendees, long duration) {
 
     // For a time to be unavailable, there must be someone at 
     // the event who is in the meeting attendees list
-    List<TimeRange> unavailableTimes = 
-      new ArrayList(convertAttendeesAndEventsToUnavailableTimes(events, attendees));
+    long started = QueryStats.start();
+    Set<String> meetingAttendees = new HashSet<>(attendees);
+    int[] starts = new int[events.size()];
+    int[] ends = new int[events.size()];
+    int count = 0;
 
-    // If there are no unavailable times, people can meet any time!
-    if (unavailableTimes.size() == 0) return Arrays.asList(TimeRange.WHOLE_DAY);
+    for (Event event : events) {
+      long when = event.getPackedWhen();
+      // An event without a duration doesn't keep anybody busy
+      if (PackedTimeRange.duration(when) > 0
+          && doesEventHaveMeetingAttendee(event.getAttendeeArray(), meetingAttendees)) {
+        starts[count] = PackedTimeRange.start(when);
+        ends[count] = PackedTimeRange.end(when);
+        count++;
+      }
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
+
+    return findAvailableTimes(starts, ends, count, TimeRange.WHOLE_DAY, duration);
+  }
+
+  /**
+   * Finds the times during the day when none of the attendees are busy according to the calendar.
+   * @param calendar the busy times of every attendee
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet
+   */
+  private static Collection<TimeRange> findAvailableTimes(AttendeeCalendar calendar,
+    Collection<String> attendees, long duration) {
 
-    Collections.sort(unavailableTimes, TimeRange.ORDER_BY_START);
+    long started = QueryStats.start();
+    BusyIntervals[] busyTimes = new BusyIntervals[attendees.size()];
+    int total = 0;
+    int i = 0;
+    for (String attendee : attendees) {
+      busyTimes[i] = calendar.getBusyIntervals(attendee);
+      total += busyTimes[i].size();
+      i++;
+    }
 
-    Collection<TimeRange> unavailableNoOverlaps = mergeTimeRanges(unavailableTimes);
+    int[] starts = new int[total];
+    int[] ends = new int[total];
+    int count = 0;
+    for (BusyIntervals intervals : busyTimes) {
+      count = intervals.copyTo(starts, ends, count);
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
 
-    Collection<TimeRange> availableTimes = 
-      findAvailableTimesFromUnavailableTimes(unavailableNoOverlaps);
+    return findAvailableTimes(starts, ends, count, TimeRange.WHOLE_DAY, duration);
+  }
 
-    Collection<TimeRange> finalAvailableTimes =
-      removeAllTimeRangesLessThanGivenDuration(availableTimes, request.getDuration());
+  /**
+   * Finds the times within a window when none of the attendees are busy according to a horizon
+   * calendar. Only the events that overlap the window are looked at.
+   * @param calendar the busy times of every attendee over many days
+   * @param window the span of time to search
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet
+   */
+  private static Collection<TimeRange> findAvailableTimes(HorizonCalendar calendar,
+    TimeRange window, Collection<String> attendees, long duration) {
 
-    return finalAvailableTimes;
+    long started = QueryStats.start();
+    IntervalList busy = new IntervalList();
+    int count = 0;
+    for (String attendee : attendees) {
+      BusyIntervals intervals = calendar.getBusyIntervals(attendee, window.start(), window.end());
+      for (int i = 0; i < intervals.size(); i++) {
+        busy.add(intervals.start(i), intervals.end(i));
+      }
+      count += intervals.size();
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
+    return busy.freeTimes(window, duration);
   }
 
   /**
-   * Removes items from a Collection if they are shorter than the specified duration.
-   * @param times a collection of TimeRanges
-   * @param duration the threshold length of the meeting 
-   * @return a new collection with a list of sufficient times at least as long as the duration
+   * Lazily finds the times during the day when none of the attendees are at any of the events. The
+   * events that matter are gathered into a heap instead of being sorted.
+   * @param events the list of events to take into consideration when finding available times
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet, in chronological order
    */
-  private static Collection<TimeRange> removeAllTimeRangesLessThanGivenDuration(
-    Collection<TimeRange> times, long duration) {
-  
-    Collection<TimeRange> filtered = times.stream()
-      .filter( time -> time.duration() >= duration )
-      .collect(Collectors.toList());
+  private static Iterator<TimeRange> freeTimesOf(Collection<Event> events,
+    Collection<String> attendees, long duration) {
 
-    return filtered;
+    long started = QueryStats.start();
+    Set<String> meetingAttendees = new HashSet<>(attendees);
+    long[] busy = new long[events.size()];
+    int count = 0;
+    for (Event event : events) {
+      long when = event.getPackedWhen();
+      // An event without a duration doesn't keep anybody busy
+      if (PackedTimeRange.duration(when) > 0
+          && doesEventHaveMeetingAttendee(event.getAttendeeArray(), meetingAttendees)) {
+        busy[count++] = when;
+      }
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
+
+    return new FreeTimeIterator(FreeTimeIterator.heapOf(busy, count), TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.end(), duration);
   }
 
   /**
-   * Converts unavailable TimeRanges to available TimeRanges by 'subtracting' from a full day.
-   * @param unavailableTimes a collection of unavailable TimeRanges
-   * @return a collection representing the available times throughout the day
+   * Lazily finds the times during the day when none of the attendees are busy according to the
+   * calendar.
+   * @param calendar the busy times of every attendee
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet, in chronological order
    */
-  private static Collection<TimeRange> findAvailableTimesFromUnavailableTimes(
-    Collection<TimeRange> unavailableTimes) {
+  private static Iterator<TimeRange> freeTimesOf(AttendeeCalendar calendar,
+    Collection<String> attendees, long duration) {
 
-    Collection<TimeRange> availableTimes = new ArrayList<>();
-    int startTime = TimeRange.START_OF_DAY;
-    int endTime;
+    long started = QueryStats.start();
+    BusyIntervals[] busyTimes = new BusyIntervals[attendees.size()];
+    int count = 0;
+    int i = 0;
+    for (String attendee : attendees) {
+      busyTimes[i] = calendar.getBusyIntervals(attendee);
+      count += busyTimes[i].size();
+      i++;
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
 
-    for (TimeRange tr : unavailableTimes) {
-      endTime = tr.start();
-      if (startTime != endTime) {
-        availableTimes.add(TimeRange.fromStartEnd(startTime, endTime, false));
-      }
-      startTime = tr.end();
+    return new FreeTimeIterator(FreeTimeIterator.merging(busyTimes), TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.end(), duration);
+  }
+
+  /**
+   * Combines the busy times of a group of attendees into one list.
+   * @param calendar the busy times of every attendee
+   * @param attendees the people in the group
+   * @return the times when at least one person in the group is busy
+   */
+  private static BusyIntervals mergeBusyIntervals(AttendeeCalendar calendar,
+    Collection<String> attendees) {
+
+    long started = QueryStats.start();
+    int total = 0;
+    for (String attendee : attendees) {
+      total += calendar.getBusyIntervals(attendee).size();
     }
 
-    // Fencepost problem
-    endTime = TimeRange.WHOLE_DAY.duration();
-    if (startTime != endTime) {
-      availableTimes.add(TimeRange.fromStartEnd(startTime, endTime, false));
+    int[] starts = new int[total];
+    int[] ends = new int[total];
+    int count = 0;
+    for (String attendee : attendees) {
+      count = calendar.getBusyIntervals(attendee).copyTo(starts, ends, count);
     }
-    return availableTimes;
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
+    return BusyIntervals.merge(starts, ends, count);
+  }
+
+  /**
+   * Subtracts merged busy intervals from the day.
+   * @return the free TimeRanges at least {@code duration} long
+   */
+  private static List<TimeRange> freeTimesOf(BusyIntervals busy, long duration) {
+    int[] starts = new int[busy.size()];
+    int[] ends = new int[busy.size()];
+    int count = busy.copyTo(starts, ends, 0);
+    return IntervalSweep.freeTimes(starts, ends, count, TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.end(), duration);
   }
 
   /**
-   * Merges TimeRanges that overlap with eachother into a new collection of TimeRanges.
-   * @param times the list of TimeRanges to merge
-   * @return a list of merged TimeRanges
+   * Subtracts the busy intervals from the window.
+   * @return the free TimeRanges at least {@code duration} long
    */
-  private static Collection<TimeRange> mergeTimeRanges(List<TimeRange> times) {
-    int startTime;
-    int endTime;
-    Collection<TimeRange> mergedTimes = new ArrayList<>();
+  private static Collection<TimeRange> findAvailableTimes(int[] starts, int[] ends, int count,
+    TimeRange window, long duration) {
+
+    // If there are no unavailable times, people can meet any time!
+    if (count == 0) return Arrays.asList(window);
+
+    return IntervalSweep.freeTimes(starts, ends, count, window.start(), window.end(), duration);
+  }
 
-    for (int i = 0; i < times.size(); i++) {
-      TimeRange currTimeRange = times.get(i);
-      startTime = currTimeRange.start();
-      endTime = currTimeRange.end();
+  /**
+   * Finds the times during the day when none of the attendees are at any of the events by marking
+   * the events in a {@link MinuteBitmap}.
+   * @param events the list of events to take into consideration when finding available times
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet
+   */
+  private static Collection<TimeRange> findAvailableMinutes(Collection<Event> events,
+    Collection<String> attendees, long duration) {
 
-      for (int j = i; j < times.size(); j++) {
-        TimeRange nextTimeRange = times.get(j);
-        if (currTimeRange.overlaps(nextTimeRange)) {
-          endTime = Math.max(currTimeRange.end(), nextTimeRange.end());
-          i = j;
-        } else {
-          break;
-        }
+    long started = QueryStats.start();
+    Set<String> meetingAttendees = new HashSet<>(attendees);
+    long[] busy = MinuteBitmap.newMask();
+    int count = 0;
+    for (Event event : events) {
+      long when = event.getPackedWhen();
+      // An event without a duration doesn't keep anybody busy
+      if (PackedTimeRange.duration(when) > 0
+          && doesEventHaveMeetingAttendee(event.getAttendeeArray(), meetingAttendees)) {
+        MinuteBitmap.setRange(busy, PackedTimeRange.start(when), PackedTimeRange.end(when));
+        count++;
       }
-      mergedTimes.add(TimeRange.fromStartEnd(startTime, endTime, false));
     }
-    return mergedTimes;
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
+    return scanMinutes(busy, count, duration);
   }
 
   /**
-   * Converts a list of Events and attendees to a collection of unavailable times
-   * for the attendees to meet.
-   * @param events a collection of events to consider for attendee busyness
-   * @param attendees the collection of attendees to cross-compare with the events
-   * @return a collection of TimeRanges when the attendees are not available to have a meeting
+   * Finds the times during the day when none of the attendees are busy by combining their
+   * {@link MinuteBitmap} masks.
+   * @param calendar the busy times of every attendee
+   * @param attendees the people who need to be free
+   * @param duration the shortest time worth returning
+   * @return available times for the group to meet
    */
-  private static Collection<TimeRange> convertAttendeesAndEventsToUnavailableTimes(
-    Collection<Event> events, Collection<String> attendees) {
-    
-    // The event times are only unavailable if there is a participant from the MeetingRequest
-    // at the event
-    Collection<TimeRange> filtered = events.stream()
-      .filter( event -> doesEventHaveMeetingAttendee(event.getAttendees(), attendees) )
-      .map( event -> event.getWhen() )
-      .collect(Collectors.toList());
+  private static Collection<TimeRange> findAvailableMinutes(AttendeeCalendar calendar,
+    Collection<String> attendees, long duration) {
 
-    return filtered;
+    long started = QueryStats.start();
+    long[] busy = MinuteBitmap.newMask();
+    int count = 0;
+    for (String attendee : attendees) {
+      BusyIntervals intervals = calendar.getBusyIntervals(attendee);
+      MinuteBitmap.or(busy, intervals.minuteMask());
+      count += intervals.size();
+    }
+    QueryStats.record(QueryStats.Phase.COLLECT, started, count);
+    return scanMinutes(busy, count, duration);
+  }
+
+  /**
+   * Finds the free runs in a {@link MinuteBitmap} mask, timing it as the sweep.
+   * @param count the number of busy intervals marked in the mask
+   */
+  private static Collection<TimeRange> scanMinutes(long[] busy, int count, long duration) {
+    long started = QueryStats.start();
+    Collection<TimeRange> availableTimes = MinuteBitmap.freeTimes(busy, duration);
+    QueryStats.record(QueryStats.Phase.SWEEP, started, count);
+    return availableTimes;
   }
 
   /**
    * Determines whether there exists a meeting attendee that is involved in a given event. 
-   * @param eventAttendees a collection of strings representing the attendees of an event
-   * @param meetingAttendees a collection of strings representing the meeting attendees
+   * @param eventAttendees the attendees of an event
+   * @param meetingAttendees the meeting attendees
    * @return a boolean; true if there exists at least one meeting attendee is in an event
    * or false otherwise
    */
-  private static boolean doesEventHaveMeetingAttendee(Collection<String> eventAttendees,
-    Collection<String> meetingAttendees) {
+  private static boolean doesEventHaveMeetingAttendee(String[] eventAttendees,
+    Set<String> meetingAttendees) {
+
+    // Plain loop rather than a stream: this runs once per event on every query
+    for (String person : eventAttendees) {
+      if (meetingAttendees.contains(person)) return true;
+    }
+    return false;
+  }
+
+  /** Looks up the available times of a group of attendees. */
+  private interface AvailabilityFinder {
+    Collection<TimeRange> find(Collection<String> attendees, long duration);
+  }
 
-    return meetingAttendees.stream()
-      .anyMatch( person -> eventAttendees.contains(person) );
+  /** Lazily looks up the available times of a group of attendees. */
+  private interface LazyAvailabilityFinder {
+    Iterator<TimeRange> find(Collection<String> attendees, long duration);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Produces the gaps between busy intervals one at a time, in chronological order. Busy intervals
+ * are pulled from a {@link BusyQueue} in order of start only as far as the gaps that have been
+ * asked for, so a caller that stops after the first few gaps never pays for sorting or merging
+ * the rest of the day.
+ */
+final class FreeTimeIterator implements Iterator<TimeRange> {
+  /** Hands out busy intervals, packed by {@link PackedTimeRange}, in order of start. */
+  interface BusyQueue {
+    boolean isEmpty();
+
+    long poll();
+  }
+
+  private final BusyQueue busy;
+  private final int to;
+  private final long minDuration;
+
+  // Everything before the cursor has been either returned or ruled out.
+  private int cursor;
+  private TimeRange next;
+
+  /**
+   * Creates an iterator over the gaps in {@code [from, to)} that are at least {@code minDuration}
+   * minutes long.
+   */
+  FreeTimeIterator(BusyQueue busy, int from, int to, long minDuration) {
+    this.busy = busy;
+    this.cursor = from;
+    this.to = to;
+    this.minDuration = minDuration;
+    this.next = findNext();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  @Override
+  public TimeRange next() {
+    if (next == null) {
+      throw new NoSuchElementException();
+    }
+
+    TimeRange current = next;
+    next = findNext();
+    return current;
+  }
+
+  /**
+   * Returns the next gap that is long enough, or null if there are none left.
+   */
+  private TimeRange findNext() {
+    while (cursor < to) {
+      if (busy.isEmpty()) {
+        int start = cursor;
+        cursor = to;
+        return isLongEnough(start, to) ? TimeRange.fromStartEnd(start, to, false) : null;
+      }
+
+      long range = busy.poll();
+      int freeEnd = Math.min(PackedTimeRange.start(range), to);
+      int freeStart = cursor;
+      // A busy interval that starts before the cursor can only push it further along.
+      cursor = Math.max(cursor, PackedTimeRange.end(range));
+      if (isLongEnough(freeStart, freeEnd)) {
+        return TimeRange.fromStartEnd(freeStart, freeEnd, false);
+      }
+    }
+    return null;
+  }
+
+  private boolean isLongEnough(int start, int end) {
+    return end > start && end - start >= minDuration;
+  }
+
+  /**
+   * Returns a queue over the busy intervals of several calendars, merging them as they are
+   * polled. Each calendar is already sorted, so only one interval per calendar is compared at a
+   * time.
+   */
+  static BusyQueue merging(BusyIntervals[] calendars) {
+    PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, calendars.length),
+        Comparator.comparingInt(Cursor::start));
+    for (BusyIntervals calendar : calendars) {
+      if (calendar.size() > 0) {
+        cursors.add(new Cursor(calendar));
+      }
+    }
+
+    return new BusyQueue() {
+      @Override
+      public boolean isEmpty() {
+        return cursors.isEmpty();
+      }
+
+      @Override
+      public long poll() {
+        Cursor cursor = cursors.poll();
+        long range = PackedTimeRange.pack(cursor.start(), cursor.end() - cursor.start());
+        if (cursor.advance()) {
+          cursors.add(cursor);
+        }
+        return range;
+      }
+    };
+  }
+
+  /**
+   * Returns a queue over the first {@code count} packed ranges, which don't need to be sorted.
+   * They are kept in a binary heap, so building the queue is linear and each poll is logarithmic.
+   * The array is reordered in place.
+   */
+  static BusyQueue heapOf(long[] ranges, int count) {
+    // Packed ranges sort by start, so a min-heap of the longs is a queue ordered by start.
+    for (int i = count / 2 - 1; i >= 0; i--) {
+      siftDown(ranges, i, count);
+    }
+
+    return new BusyQueue() {
+      private int size = count;
+
+      @Override
+      public boolean isEmpty() {
+        return size == 0;
+      }
+
+      @Override
+      public long poll() {
+        long first = ranges[0];
+        ranges[0] = ranges[--size];
+        siftDown(ranges, 0, size);
+        return first;
+      }
+    };
+  }
+
+  private static void siftDown(long[] heap, int index, int size) {
+    long value = heap[index];
+    int child;
+    while ((child = 2 * index + 1) < size) {
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (heap[child] >= value) break;
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = value;
+  }
+
+  /** The position of a merge in one calendar. */
+  private static final class Cursor {
+    private final BusyIntervals calendar;
+    private int index;
+
+    private Cursor(BusyIntervals calendar) {
+      this.calendar = calendar;
+    }
+
+    private int start() {
+      return calendar.start(index);
+    }
+
+    private int end() {
+      return calendar.end(index);
+    }
+
+    private boolean advance() {
+      return ++index < calendar.size();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The busy times of every attendee over a horizon of many days. Unlike the single-day calendars,
+ * every {@code TimeRange} in a horizon calendar is measured in absolute minutes since
+ * 1970-01-01T00:00Z (see {@link #toEpochMinutes}), so events can be placed on any day and can run
+ * past midnight. Each attendee's events are kept in an {@link IntervalTree}, so looking up a date
+ * window only visits the events that overlap it.
+ *
+ * <p>{@link RecurringEvent} series are kept as rules and only expanded for the windows that are
+ * looked up. The expansions of the most recent windows are cached, so repeated queries over the
+ * same window don't expand the series again, while memory stays flat however far ahead a series
+ * runs. Calendars are read-only and safe to share between threads.
+ */
+public final class HorizonCalendar {
+  // The most windows whose expansions are kept.
+  private static final int MAX_CACHED_WINDOWS = 16;
+
+  private final Map<String, IntervalTree> eventsByAttendee = new HashMap<>();
+  private final Map<String, List<RecurringEvent>> seriesByAttendee = new HashMap<>();
+
+  // Expanded series for each recent window, keyed by the window packed as from << 32 | to. The
+  // inner maps are filled in as attendees are looked up.
+  private final Map<Long, Map<String, BusyIntervals>> expansionsByWindow =
+      new LinkedHashMap<Long, Map<String, BusyIntervals>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Map<String, BusyIntervals>> eldest) {
+          return size() > MAX_CACHED_WINDOWS;
+        }
+      };
+
+  /**
+   * Creates a calendar over {@code events}.
+   *
+   * @param events The events that keep their attendees busy, with times in epoch minutes. Must be
+   *     non-null.
+   */
+  public HorizonCalendar(Collection<Event> events) {
+    this(events, Collections.emptyList());
+  }
+
+  /**
+   * Creates a calendar over one-off events and recurring series.
+   *
+   * @param events The events that keep their attendees busy, with times in epoch minutes. Must be
+   *     non-null.
+   * @param recurringEvents The series that keep their attendees busy. Must be non-null.
+   */
+  public HorizonCalendar(Collection<Event> events, Collection<RecurringEvent> recurringEvents) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty array instead.");
+    }
+
+    if (recurringEvents == null) {
+      throw new IllegalArgumentException(
+          "recurringEvents cannot be null. Use empty array instead.");
+    }
+
+    Map<String, IntervalList> intervalsByAttendee = new HashMap<>();
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      // An event without a duration doesn't keep anybody busy
+      if (when.duration() <= 0) continue;
+
+      for (String attendee : event.getAttendees()) {
+        intervalsByAttendee.computeIfAbsent(attendee, name -> new IntervalList())
+            .add(when.start(), when.end());
+      }
+    }
+
+    for (Map.Entry<String, IntervalList> entry : intervalsByAttendee.entrySet()) {
+      eventsByAttendee.put(entry.getKey(), entry.getValue().toTree());
+    }
+
+    for (RecurringEvent series : recurringEvents) {
+      if (series.getFirst().duration() <= 0) continue;
+
+      for (String attendee : series.getAttendees()) {
+        seriesByAttendee.computeIfAbsent(attendee, name -> new ArrayList<>()).add(series);
+      }
+    }
+  }
+
+  /**
+   * Converts a UTC date and time into the minutes used by horizon calendars.
+   */
+  public static int toEpochMinutes(LocalDateTime dateTime) {
+    return Math.toIntExact(dateTime.toEpochSecond(ZoneOffset.UTC) / 60);
+  }
+
+  /**
+   * Returns the merged busy intervals of {@code attendee} that overlap {@code [from, to)}, clipped
+   * to the window.
+   */
+  BusyIntervals getBusyIntervals(String attendee, int from, int to) {
+    IntervalTree tree = eventsByAttendee.getOrDefault(attendee, IntervalTree.EMPTY);
+    IntervalList overlapping = new IntervalList();
+    tree.forEachOverlapping(from, to,
+        (start, end) -> overlapping.add(Math.max(start, from), Math.min(end, to)));
+
+    BusyIntervals recurring = getRecurringBusyIntervals(attendee, from, to);
+    for (int i = 0; i < recurring.size(); i++) {
+      overlapping.add(recurring.start(i), recurring.end(i));
+    }
+    return overlapping.merge();
+  }
+
+  /**
+   * Returns the merged occurrences of {@code attendee}'s series that overlap {@code [from, to)},
+   * clipped to the window, expanding them only if the window isn't cached.
+   */
+  private BusyIntervals getRecurringBusyIntervals(String attendee, int from, int to) {
+    List<RecurringEvent> series = seriesByAttendee.get(attendee);
+    if (series == null) return BusyIntervals.EMPTY;
+
+    Map<String, BusyIntervals> expansions;
+    synchronized (expansionsByWindow) {
+      expansions = expansionsByWindow.computeIfAbsent(
+          ((long) from << 32) | (to & 0xFFFFFFFFL), window -> new ConcurrentHashMap<>());
+    }
+
+    return expansions.computeIfAbsent(attendee, name -> {
+      IntervalList occurrences = new IntervalList();
+      for (RecurringEvent event : series) {
+        event.forEachOccurrence(from, to,
+            (start, end) -> occurrences.add(Math.max(start, from), Math.min(end, to)));
+      }
+      return occurrences.merge();
+    });
+  }
+}
@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** A growable pair of start and end arrays, used while busy intervals are being gathered. */
+final class IntervalList {
+  private int[] starts = new int[4];
+  private int[] ends = new int[4];
+  private int size;
+
+  /**
+   * Appends the interval {@code [start, end)}.
+   */
+  void add(int start, int end) {
+    if (size == starts.length) {
+      starts = Arrays.copyOf(starts, size * 2);
+      ends = Arrays.copyOf(ends, size * 2);
+    }
+    starts[size] = start;
+    ends[size] = end;
+    size++;
+  }
+
+  /**
+   * Merges the gathered intervals. The list must not be used afterwards because its arrays are
+   * handed over to the result.
+   */
+  BusyIntervals merge() {
+    return BusyIntervals.merge(starts, ends, size);
+  }
+
+  /**
+   * Builds an {@link IntervalTree} over the gathered intervals.
+   */
+  IntervalTree toTree() {
+    return new IntervalTree(starts, ends, size);
+  }
+
+  /**
+   * Subtracts the gathered intervals from {@code window}. The list must not be used afterwards
+   * because its arrays are reordered.
+   * @return the free TimeRanges at least {@code minDuration} long
+   */
+  List<TimeRange> freeTimes(TimeRange window, long minDuration) {
+    return IntervalSweep.freeTimes(starts, ends, size, window.start(), window.end(), minDuration);
+  }
+}
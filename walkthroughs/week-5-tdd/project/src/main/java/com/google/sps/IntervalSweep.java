@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sweep-line operations over busy intervals stored as parallel {@code int} arrays of starts and
+ * (exclusive) ends.
+ *
+ * <p>The starts and the ends are sorted independently. Walking both arrays in order while keeping
+ * a count of the intervals that are currently open is enough to find every point where the count
+ * goes from zero to one (a busy block begins) or from one to zero (a busy block ends), so merging
+ * and subtracting from the day happen in a single pass without pairing a start with its own end.
+ */
+final class IntervalSweep {
+  private IntervalSweep() {
+    // Disallow instances.
+  }
+
+  /**
+   * Merges the first {@code count} intervals in place. Overlapping and touching intervals are
+   * combined, and the merged intervals are written back to the front of the arrays in
+   * chronological order.
+   * @param starts the inclusive starts of the intervals, sorted by this method
+   * @param ends the exclusive ends of the intervals, sorted by this method
+   * @param count the number of intervals in use at the front of the arrays
+   * @return the number of merged intervals
+   */
+  static int merge(int[] starts, int[] ends, int count) {
+    Arrays.sort(starts, 0, count);
+    Arrays.sort(ends, 0, count);
+
+    int merged = 0;
+    int open = 0;
+    int i = 0;
+    int j = 0;
+
+    // Every start is consumed before the end it belongs to, so the write position never passes
+    // the read positions and the merge can safely reuse the input arrays.
+    while (j < count) {
+      if (i < count && starts[i] <= ends[j]) {
+        if (open++ == 0) {
+          starts[merged] = starts[i];
+        }
+        i++;
+      } else {
+        if (--open == 0) {
+          ends[merged++] = ends[j];
+        }
+        j++;
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Finds the gaps between the first {@code count} busy intervals that fall within
+   * {@code [from, to)} and are at least {@code minDuration} minutes long. The intervals do not need
+   * to be sorted or merged beforehand.
+   * @param starts the inclusive starts of the busy intervals, sorted by this method
+   * @param ends the exclusive ends of the busy intervals, sorted by this method
+   * @param count the number of intervals in use at the front of the arrays
+   * @param from the inclusive start of the window to search
+   * @param to the exclusive end of the window to search
+   * @param minDuration the shortest gap worth returning
+   * @return the free TimeRanges in chronological order
+   */
+  static List<TimeRange> freeTimes(int[] starts, int[] ends, int count, int from, int to,
+      long minDuration) {
+    long started = QueryStats.start();
+    Arrays.sort(starts, 0, count);
+    Arrays.sort(ends, 0, count);
+    QueryStats.record(QueryStats.Phase.SORT, started, count);
+
+    started = QueryStats.start();
+    List<TimeRange> available = new ArrayList<>();
+    int free = from;
+    int open = 0;
+    int i = 0;
+    int j = 0;
+
+    while (j < count) {
+      if (i < count && starts[i] <= ends[j]) {
+        if (open++ == 0) {
+          addIfLongEnough(available, free, Math.min(starts[i], to), minDuration);
+        }
+        i++;
+      } else {
+        if (--open == 0) {
+          free = Math.max(free, ends[j]);
+        }
+        j++;
+      }
+    }
+
+    // Fencepost problem
+    addIfLongEnough(available, free, to, minDuration);
+    QueryStats.record(QueryStats.Phase.SWEEP, started, count);
+    return available;
+  }
+
+  /**
+   * Appends {@code [start, end)} to {@code times} if it is not empty and at least
+   * {@code minDuration} minutes long.
+   */
+  private static void addIfLongEnough(List<TimeRange> times, int start, int end,
+      long minDuration) {
+    if (end > start && end - start >= minDuration) {
+      times.add(TimeRange.fromStartEnd(start, end, false));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * A read-only augmented interval tree. The intervals are sorted by start and the tree is implicit:
+ * the root of any slice of the arrays is the middle element, with the lower half as its left
+ * subtree and the upper half as its right subtree. Every node also stores the latest end in its
+ * subtree, which lets an overlap search skip subtrees that finish before the window starts.
+ */
+final class IntervalTree {
+  /** Receives the intervals found by {@link IntervalTree#forEachOverlapping}. */
+  interface Visitor {
+    void visit(int start, int end);
+  }
+
+  static final IntervalTree EMPTY = new IntervalTree(new int[0], new int[0], 0);
+
+  private final int[] starts;
+  private final int[] ends;
+  private final int[] maxEnds;
+
+  /**
+   * Builds a tree over the first {@code count} intervals.
+   * @param starts the inclusive starts of the intervals, in any order
+   * @param ends the exclusive ends of the intervals, in any order
+   * @param count the number of intervals in use at the front of the arrays
+   */
+  IntervalTree(int[] starts, int[] ends, int count) {
+    // Sort by start, carrying each interval's position along in the low bits.
+    long[] order = new long[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = ((long) starts[i] << 32) | i;
+    }
+    Arrays.sort(order);
+
+    this.starts = new int[count];
+    this.ends = new int[count];
+    for (int i = 0; i < count; i++) {
+      int original = (int) order[i];
+      this.starts[i] = starts[original];
+      this.ends[i] = ends[original];
+    }
+
+    this.maxEnds = new int[count];
+    computeMaxEnds(0, count);
+  }
+
+  /**
+   * Returns the number of intervals in the tree.
+   */
+  int size() {
+    return starts.length;
+  }
+
+  /**
+   * Calls {@code visitor} with every interval that overlaps {@code [from, to)}, in order of start.
+   * Only the overlapping nodes and the paths leading to them are visited.
+   */
+  void forEachOverlapping(int from, int to, Visitor visitor) {
+    forEachOverlapping(0, starts.length, from, to, visitor);
+  }
+
+  private void forEachOverlapping(int low, int high, int from, int to, Visitor visitor) {
+    if (low >= high) return;
+
+    int node = (low + high) >>> 1;
+
+    // Nothing in this subtree ends after the window starts.
+    if (maxEnds[node] <= from) return;
+
+    forEachOverlapping(low, node, from, to, visitor);
+
+    // This node and everything to its right start after the window ends.
+    if (starts[node] >= to) return;
+
+    if (ends[node] > from) {
+      visitor.visit(starts[node], ends[node]);
+    }
+    forEachOverlapping(node + 1, high, from, to, visitor);
+  }
+
+  /**
+   * Fills in {@code maxEnds} for the subtree rooted in the middle of {@code [low, high)}.
+   * @return the latest end in the subtree
+   */
+  private int computeMaxEnds(int low, int high) {
+    if (low >= high) return Integer.MIN_VALUE;
+
+    int node = (low + high) >>> 1;
+    int maxEnd = Math.max(ends[node],
+        Math.max(computeMaxEnds(low, node), computeMaxEnds(node + 1, high)));
+    maxEnds[node] = maxEnd;
+    return maxEnd;
+  }
+}
@@ -0,0 +1,226 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of {@link FindMeetingQuery} answers against one calendar. Requests with the
+ * same attendees, optional attendees and duration share an entry no matter what order the
+ * attendees were listed in. When the cache is full, the least recently used entry is evicted.
+ *
+ * <p>Every entry remembers the version of each of its attendees' calendars. An entry is only used
+ * while all of those versions are unchanged, so a change to one person's events only invalidates
+ * the entries that include that person. All methods are safe to call from multiple threads.
+ */
+public final class MeetingQueryCache {
+  private final FindMeetingQuery findMeetingQuery;
+  private final AttendeeCalendar calendar;
+  private final Map<Key, Entry> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param findMeetingQuery Answers the requests that aren't cached. Must be non-null.
+   * @param calendar The calendar every request is answered against. Must be non-null.
+   * @param maxEntries The most answers to keep. Must be positive.
+   */
+  public MeetingQueryCache(FindMeetingQuery findMeetingQuery, AttendeeCalendar calendar,
+      int maxEntries) {
+    if (findMeetingQuery == null) {
+      throw new IllegalArgumentException("findMeetingQuery cannot be null");
+    }
+
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+
+    this.findMeetingQuery = findMeetingQuery;
+    this.calendar = calendar;
+    // Access order turns the map into an LRU list: every get moves the entry to the end.
+    this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() > maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the available times for {@code request}, from the cache if the calendars of everyone
+   * in it are unchanged since the answer was stored.
+   * @return a read-only list of available TimeRanges
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    Key key = new Key(request);
+    // The versions and the answer must come from the same moment for the entry to be trusted.
+    AttendeeCalendar snapshot = calendar.snapshot();
+
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+
+    if (entry != null) {
+      if (entry.isCurrent(snapshot, key)) {
+        hits.incrementAndGet();
+        return entry.availableTimes;
+      }
+      invalidations.incrementAndGet();
+    }
+    misses.incrementAndGet();
+
+    long[] versions = key.versionsIn(snapshot);
+    Collection<TimeRange> availableTimes = Collections.unmodifiableList(
+        new ArrayList<>(findMeetingQuery.query(snapshot, request)));
+
+    synchronized (entries) {
+      entries.put(key, new Entry(availableTimes, versions));
+    }
+    return availableTimes;
+  }
+
+  /**
+   * Returns how many requests were answered from the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns how many requests had to be answered by running the query, including the ones whose
+   * cached answer was out of date.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns how many cached answers were thrown away because someone's calendar changed.
+   */
+  public long getInvalidationCount() {
+    return invalidations.get();
+  }
+
+  /**
+   * Returns how many answers were evicted to make room for newer ones.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Returns how many answers are cached right now.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * The canonical form of a request: sorted copies of its attendees and optional attendees, and its
+   * duration. The names come from callers, so they are deliberately not interned: interning would
+   * keep every name ever asked about alive for as long as the JVM runs.
+   */
+  private static final class Key {
+    private final String[] attendees;
+    private final String[] optionalAttendees;
+    private final long duration;
+    private final int hashCode;
+
+    private Key(MeetingRequest request) {
+      this.attendees = canonicalize(request.getAttendees());
+      this.optionalAttendees = canonicalize(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.hashCode = 31 * (31 * Arrays.hashCode(attendees) + Arrays.hashCode(optionalAttendees))
+          + Long.hashCode(duration);
+    }
+
+    /**
+     * Returns the current version of every attendee, mandatory attendees first.
+     */
+    private long[] versionsIn(AttendeeCalendar calendar) {
+      long[] versions = new long[attendees.length + optionalAttendees.length];
+      for (int i = 0; i < attendees.length; i++) {
+        versions[i] = calendar.getVersion(attendees[i]);
+      }
+      for (int i = 0; i < optionalAttendees.length; i++) {
+        versions[attendees.length + i] = calendar.getVersion(optionalAttendees[i]);
+      }
+      return versions;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && equals(this, (Key) other);
+    }
+
+    private static boolean equals(Key a, Key b) {
+      return a.hashCode == b.hashCode && a.duration == b.duration
+          && Arrays.equals(a.attendees, b.attendees)
+          && Arrays.equals(a.optionalAttendees, b.optionalAttendees);
+    }
+
+    private static String[] canonicalize(Collection<String> names) {
+      String[] canonical = new String[names.size()];
+      int i = 0;
+      for (String name : names) {
+        canonical[i++] = name;
+      }
+      Arrays.sort(canonical);
+      return canonical;
+    }
+  }
+
+  /** A cached answer and the attendee versions it was computed from. */
+  private static final class Entry {
+    private final Collection<TimeRange> availableTimes;
+    private final long[] versions;
+
+    private Entry(Collection<TimeRange> availableTimes, long[] versions) {
+      this.availableTimes = availableTimes;
+      this.versions = versions;
+    }
+
+    private boolean isCurrent(AttendeeCalendar calendar, Key key) {
+      return Arrays.equals(versions, key.versionsIn(calendar));
+    }
+  }
+}
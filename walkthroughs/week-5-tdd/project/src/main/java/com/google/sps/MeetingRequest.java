@@ -27,9 +27,18 @@ public final class MeetingRequest {
   // Some optional attendees for this new meeting. Use a set to avoid duplicates.
   private final Collection<String> optional_attendees = new HashSet<>();
 
+  // The rooms the meeting could be held in. Use a set to avoid duplicates.
+  private final Collection<Room> candidate_rooms = new HashSet<>();
+
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // Gson calls this when reading a request from JSON, so that attendee lists missing from the
+  // JSON are left empty instead of null.
+  private MeetingRequest() {
+    this.duration = 0;
+  }
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -58,6 +67,24 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Returns a read-only copy of the rooms the meeting could be held in.
+   */
+  public Collection<Room> getCandidateRooms() {
+    return Collections.unmodifiableCollection(candidate_rooms);
+  }
+
+  /**
+   * Adds one room the meeting could be held in.
+   */
+  public void addCandidateRoom(Room room) {
+    if (room == null) {
+      throw new IllegalArgumentException("room cannot be null");
+    }
+
+    candidate_rooms.add(room);
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
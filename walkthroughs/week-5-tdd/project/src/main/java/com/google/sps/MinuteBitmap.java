@@ -0,0 +1,135 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operations on busy masks that hold one bit for every minute of the day. Bit {@code m} is set
+ * when someone is busy during minute {@code m}. A whole day fits in a handful of {@code long}
+ * words, so combining calendars is a word-wise OR and finding free time is a scan for runs of
+ * clear bits.
+ */
+final class MinuteBitmap {
+  static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+  static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private MinuteBitmap() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns a mask with every minute free.
+   */
+  static long[] newMask() {
+    return new long[WORDS];
+  }
+
+  /**
+   * Returns a new mask with the minutes of every interval in {@code busy} set.
+   */
+  static long[] of(BusyIntervals busy) {
+    long[] mask = newMask();
+    for (int i = 0; i < busy.size(); i++) {
+      setRange(mask, busy.start(i), busy.end(i));
+    }
+    return mask;
+  }
+
+  /**
+   * Marks the minutes in {@code [start, end)} as busy. Minutes outside of the day are ignored.
+   */
+  static void setRange(long[] mask, int start, int end) {
+    start = Math.max(start, 0);
+    end = Math.min(end, MINUTES);
+    if (start >= end) return;
+
+    int firstWord = start >>> 6;
+    int lastWord = (end - 1) >>> 6;
+    // Shifts only use the low six bits of the distance, so these keep the bits from start onwards
+    // and the bits before end within their words.
+    long firstBits = -1L << start;
+    long lastBits = -1L >>> -end;
+
+    if (firstWord == lastWord) {
+      mask[firstWord] |= firstBits & lastBits;
+      return;
+    }
+
+    mask[firstWord] |= firstBits;
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      mask[word] = -1L;
+    }
+    mask[lastWord] |= lastBits;
+  }
+
+  /**
+   * Adds every busy minute of {@code other} to {@code mask}.
+   */
+  static void or(long[] mask, long[] other) {
+    for (int word = 0; word < WORDS; word++) {
+      mask[word] |= other[word];
+    }
+  }
+
+  /**
+   * Finds the runs of free minutes that are at least {@code minDuration} long.
+   * @return the free TimeRanges in chronological order
+   */
+  static List<TimeRange> freeTimes(long[] mask, long minDuration) {
+    List<TimeRange> available = new ArrayList<>();
+    int start = nextFree(mask, 0);
+    while (start < MINUTES) {
+      int end = nextBusy(mask, start);
+      if (end - start >= minDuration) {
+        available.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      start = nextFree(mask, end);
+    }
+    return available;
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or {@link #MINUTES} if there is none.
+   */
+  private static int nextBusy(long[] mask, int from) {
+    if (from >= MINUTES) return MINUTES;
+
+    int word = from >>> 6;
+    long bits = mask[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORDS) return MINUTES;
+      bits = mask[word];
+    }
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(bits), MINUTES);
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or {@link #MINUTES} if there is none.
+   */
+  private static int nextFree(long[] mask, int from) {
+    if (from >= MINUTES) return MINUTES;
+
+    int word = from >>> 6;
+    long bits = ~mask[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORDS) return MINUTES;
+      bits = ~mask[word];
+    }
+    // The unused bits past the end of the day are never set, so they look free; clamp them away.
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(bits), MINUTES);
+  }
+}
@@ -0,0 +1,47 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+/**
+ * Encodes a range of minutes as a single {@code long}, {@code start << 32 | duration}, for the
+ * internal collections that would otherwise hold one {@link TimeRange} object per entry. The start
+ * is in the high half, so sorting packed ranges sorts them by start and then by duration. Ranges
+ * are only turned back into {@code TimeRange}s at the public API.
+ */
+final class PackedTimeRange {
+  // Disallow instances.
+  private PackedTimeRange() {}
+
+  static long pack(int start, int duration) {
+    return ((long) start << 32) | (duration & 0xFFFFFFFFL);
+  }
+
+  static long pack(TimeRange range) {
+    return pack(range.start(), range.duration());
+  }
+
+  static int start(long range) {
+    return (int) (range >> 32);
+  }
+
+  static int duration(long range) {
+    return (int) range;
+  }
+
+  static int end(long range) {
+    return start(range) + duration(range);
+  }
+}
@@ -0,0 +1,326 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map whose updates return a new map and share everything they didn't touch with
+ * the old one. The entries form a trie on the bits of the key's hash, 5 bits per level, so an
+ * update copies only the few small nodes on the path to the entry: work proportional to the log of
+ * the size, not to the size. Keys with equal hashes share a node that is searched linearly.
+ *
+ * <p>Keys and values must be non-null.
+ */
+final class PersistentMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the map with no entries.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns the number of entries.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value for {@code key}, or null if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  V get(Object key) {
+    return (V) root.get(0, hash(key), key);
+  }
+
+  /**
+   * Returns a map with {@code key} mapped to {@code value} and every other entry unchanged.
+   */
+  PersistentMap<K, V> with(K key, V value) {
+    if (key == null || value == null) {
+      throw new IllegalArgumentException("key and value cannot be null");
+    }
+
+    boolean[] added = new boolean[1];
+    Node newRoot = root.with(0, hash(key), key, value, added);
+    return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map without {@code key} and with every other entry unchanged.
+   */
+  PersistentMap<K, V> without(Object key) {
+    Node newRoot = root.without(0, hash(key), key);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? empty() : new PersistentMap<>(newRoot, size - 1);
+  }
+
+  /**
+   * Calls {@code action} with every entry, in no particular order.
+   */
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<? super K, ? super V> action) {
+    root.forEach((BiConsumer<Object, Object>) action);
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode();
+    // Mix the high bits in, since the trie looks at the low bits first.
+    return hash ^ (hash >>> 16);
+  }
+
+  private abstract static class Node {
+    /** Returns the value for {@code key}, or null. */
+    abstract Object get(int shift, int hash, Object key);
+
+    /** Returns this node with {@code key} set, or this node if nothing changed. */
+    abstract Node with(int shift, int hash, Object key, Object value, boolean[] added);
+
+    /** Returns this node without {@code key}, this node if it was absent, or null if now empty. */
+    abstract Node without(int shift, int hash, Object key);
+
+    abstract void forEach(BiConsumer<Object, Object> action);
+  }
+
+  /**
+   * A trie node with up to 32 slots, of which only the used ones are stored. Each used slot is a
+   * key and its value, or a null key and the child node for every key that shares those hash bits.
+   */
+  private static final class BitmapNode extends Node {
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int bitmap;
+    private final Object[] slots;
+
+    private BitmapNode(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    @Override
+    Object get(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+
+      int index = index(bit);
+      Object slotKey = slots[2 * index];
+      Object slotValue = slots[2 * index + 1];
+      if (slotKey == null) {
+        return ((Node) slotValue).get(shift + BITS, hash, key);
+      }
+      return key.equals(slotKey) ? slotValue : null;
+    }
+
+    @Override
+    Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+      int bit = bit(hash, shift);
+      int index = index(bit);
+      if ((bitmap & bit) == 0) {
+        Object[] newSlots = new Object[slots.length + 2];
+        System.arraycopy(slots, 0, newSlots, 0, 2 * index);
+        newSlots[2 * index] = key;
+        newSlots[2 * index + 1] = value;
+        System.arraycopy(slots, 2 * index, newSlots, 2 * index + 2, slots.length - 2 * index);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, newSlots);
+      }
+
+      Object slotKey = slots[2 * index];
+      Object slotValue = slots[2 * index + 1];
+      if (slotKey == null) {
+        Node child = (Node) slotValue;
+        Node newChild = child.with(shift + BITS, hash, key, value, added);
+        return newChild == child ? this : replace(index, null, newChild);
+      }
+      if (key.equals(slotKey)) {
+        return slotValue == value ? this : replace(index, slotKey, value);
+      }
+
+      added[0] = true;
+      Node child = pair(shift + BITS, slotKey, slotValue, hash, key, value);
+      return replace(index, null, child);
+    }
+
+    @Override
+    Node without(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+
+      int index = index(bit);
+      Object slotKey = slots[2 * index];
+      Object slotValue = slots[2 * index + 1];
+      if (slotKey == null) {
+        Node child = (Node) slotValue;
+        Node newChild = child.without(shift + BITS, hash, key);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild != null) {
+          return replace(index, null, newChild);
+        }
+      } else if (!key.equals(slotKey)) {
+        return this;
+      }
+
+      if (bitmap == bit) {
+        return null;
+      }
+      Object[] newSlots = new Object[slots.length - 2];
+      System.arraycopy(slots, 0, newSlots, 0, 2 * index);
+      System.arraycopy(slots, 2 * index + 2, newSlots, 2 * index, newSlots.length - 2 * index);
+      return new BitmapNode(bitmap & ~bit, newSlots);
+    }
+
+    @Override
+    void forEach(BiConsumer<Object, Object> action) {
+      for (int i = 0; i < slots.length; i += 2) {
+        if (slots[i] == null) {
+          ((Node) slots[i + 1]).forEach(action);
+        } else {
+          action.accept(slots[i], slots[i + 1]);
+        }
+      }
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private BitmapNode replace(int index, Object key, Object value) {
+      Object[] newSlots = slots.clone();
+      newSlots[2 * index] = key;
+      newSlots[2 * index + 1] = value;
+      return new BitmapNode(bitmap, newSlots);
+    }
+  }
+
+  /** Every key whose hash is exactly {@code hash}, searched linearly. */
+  private static final class CollisionNode extends Node {
+    private final int hash;
+    private final Object[] entries;
+
+    private CollisionNode(int hash, Object[] entries) {
+      this.hash = hash;
+      this.entries = entries;
+    }
+
+    @Override
+    Object get(int shift, int hash, Object key) {
+      int index = find(key);
+      return index == -1 ? null : entries[index + 1];
+    }
+
+    @Override
+    Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+      if (hash != this.hash) {
+        // A different hash that reached this far: split on the level's bits like any other node.
+        Node parent = new BitmapNode(bit(this.hash, shift), new Object[] {null, this});
+        return parent.with(shift, hash, key, value, added);
+      }
+
+      int index = find(key);
+      if (index != -1) {
+        if (entries[index + 1] == value) {
+          return this;
+        }
+        Object[] newEntries = entries.clone();
+        newEntries[index + 1] = value;
+        return new CollisionNode(hash, newEntries);
+      }
+
+      Object[] newEntries = Arrays.copyOf(entries, entries.length + 2);
+      newEntries[entries.length] = key;
+      newEntries[entries.length + 1] = value;
+      added[0] = true;
+      return new CollisionNode(hash, newEntries);
+    }
+
+    @Override
+    Node without(int shift, int hash, Object key) {
+      int index = find(key);
+      if (index == -1) {
+        return this;
+      }
+      if (entries.length == 2) {
+        return null;
+      }
+
+      Object[] newEntries = new Object[entries.length - 2];
+      System.arraycopy(entries, 0, newEntries, 0, index);
+      System.arraycopy(entries, index + 2, newEntries, index, newEntries.length - index);
+      return new CollisionNode(hash, newEntries);
+    }
+
+    @Override
+    void forEach(BiConsumer<Object, Object> action) {
+      for (int i = 0; i < entries.length; i += 2) {
+        action.accept(entries[i], entries[i + 1]);
+      }
+    }
+
+    private int find(Object key) {
+      for (int i = 0; i < entries.length; i += 2) {
+        if (key.equals(entries[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Returns a node at depth {@code shift} holding two entries with different keys.
+   */
+  private static Node pair(int shift, Object key1, Object value1, int hash2, Object key2,
+      Object value2) {
+    int hash1 = hash(key1);
+    if (hash1 == hash2) {
+      return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+    }
+
+    boolean[] added = new boolean[1];
+    return BitmapNode.EMPTY
+        .with(shift, hash1, key1, value1, added)
+        .with(shift, hash2, key2, value2, added);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+}
@@ -0,0 +1,218 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency counters for each phase of {@link FindMeetingQuery}'s available-time queries, shared by
+ * every query in the process.
+ *
+ * <p>Every public query records its {@link Phase#COLLECT} phase, and every phase counts its items
+ * in busy intervals, so the totals of different strategies and entry points can be compared. Lazy
+ * queries don't record a sweep, since it runs while the caller reads the answer.
+ *
+ * <p>Collection is off unless the JVM is started with {@code -Dsps.queryStats=true}. The switch is
+ * read once into a constant, so when it is off the JIT removes the timing code altogether and not
+ * even {@link System#nanoTime} is called. When it is on, each phase costs two {@code nanoTime}
+ * calls and a few uncontended atomic adds.
+ */
+public final class QueryStats {
+  /** The phases of a query, in the order they run. */
+  public enum Phase {
+    /** Finding the busy times of the attendees, from the events or from a calendar. */
+    COLLECT,
+
+    /** Sorting the busy intervals. The minute bitmap strategy skips it. */
+    SORT,
+
+    /**
+     * Merging the busy intervals, subtracting them from the day and dropping the gaps that are too
+     * short. The sweep does all three in one pass.
+     */
+    SWEEP
+  }
+
+  static final boolean ENABLED = Boolean.getBoolean("sps.queryStats");
+
+  // Latencies are bucketed by powers of two: bucket b counts the times below 2^b nanoseconds.
+  private static final int BUCKETS = Long.SIZE;
+
+  private static final Counters[] COUNTERS = new Counters[Phase.values().length];
+
+  static {
+    for (int i = 0; i < COUNTERS.length; i++) {
+      COUNTERS[i] = new Counters();
+    }
+  }
+
+  private QueryStats() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns whether stats are being collected.
+   */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Returns the time a phase starts, to be passed to {@link #record}, or 0 when stats are off.
+   */
+  static long start() {
+    return ENABLED ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records that {@code phase} ran from {@code startNanos} until now over {@code items} busy
+   * intervals. Does nothing when stats are off.
+   */
+  static void record(Phase phase, long startNanos, int items) {
+    if (!ENABLED) return;
+
+    long nanos = Math.max(0, System.nanoTime() - startNanos);
+    Counters counters = COUNTERS[phase.ordinal()];
+    counters.count.increment();
+    counters.totalNanos.add(nanos);
+    counters.totalItems.add(items);
+    counters.histogram.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+  }
+
+  /**
+   * Returns what has been recorded for every phase so far.
+   */
+  public static Map<Phase, Summary> summarize() {
+    Map<Phase, Summary> summaries = new EnumMap<>(Phase.class);
+    for (Phase phase : Phase.values()) {
+      summaries.put(phase, new Summary(COUNTERS[phase.ordinal()]));
+    }
+    return summaries;
+  }
+
+  /**
+   * Forgets everything recorded so far.
+   */
+  public static void reset() {
+    for (Counters counters : COUNTERS) {
+      counters.count.reset();
+      counters.totalNanos.reset();
+      counters.totalItems.reset();
+      for (int i = 0; i < BUCKETS; i++) {
+        counters.histogram.set(i, 0);
+      }
+    }
+  }
+
+  /** The live counters of one phase. */
+  private static final class Counters {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalItems = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+  }
+
+  /**
+   * A copy of the counters of one phase. Percentiles are upper bounds, rounded up to the next
+   * power of two nanoseconds. The counters are read one by one while queries may still be running,
+   * so they can be off from each other by a few queries.
+   */
+  public static final class Summary {
+    private final long count;
+    private final long totalNanos;
+    private final long totalItems;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    // The number of times in each power-of-two bucket, up to the last bucket in use.
+    private final List<Long> histogram = new ArrayList<>();
+
+    private Summary(Counters counters) {
+      long[] buckets = new long[BUCKETS];
+      long bucketTotal = 0;
+      int lastUsed = -1;
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] = counters.histogram.get(i);
+        bucketTotal += buckets[i];
+        if (buckets[i] > 0) {
+          lastUsed = i;
+        }
+      }
+      for (int i = 0; i <= lastUsed; i++) {
+        histogram.add(buckets[i]);
+      }
+
+      this.count = counters.count.sum();
+      this.totalNanos = counters.totalNanos.sum();
+      this.totalItems = counters.totalItems.sum();
+      this.p50Nanos = percentile(buckets, bucketTotal, 0.50);
+      this.p99Nanos = percentile(buckets, bucketTotal, 0.99);
+    }
+
+    /**
+     * Returns the number of times the phase ran. A query that falls back to its mandatory
+     * attendees, or that sweeps more than once, runs a phase more than once.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /**
+     * Returns the number of busy intervals the phase has looked at in total.
+     */
+    public long getTotalItems() {
+      return totalItems;
+    }
+
+    public long getP50Nanos() {
+      return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+      return p99Nanos;
+    }
+
+    /**
+     * Returns the histogram of latencies: element b counts the times below 2^b nanoseconds and at
+     * or above 2^(b-1).
+     */
+    public List<Long> getHistogram() {
+      return histogram;
+    }
+
+    private static long percentile(long[] buckets, long total, double fraction) {
+      if (total == 0) return 0;
+
+      long wanted = (long) Math.ceil(total * fraction);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= wanted) {
+          return i == Long.SIZE - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+      }
+      return Long.MAX_VALUE;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * A request for a meeting that can go ahead as long as enough of the invited people are free,
+ * rather than needing all of them.
+ */
+public final class QuorumMeetingRequest {
+  // All the people invited to this new meeting. Use a set to avoid duplicates.
+  private final Collection<String> attendees = new HashSet<>();
+
+  // The fewest attendees that have to be free for a time to work.
+  private final int minimumAttendees;
+
+  // The duration of the meeting in minutes.
+  private final long duration;
+
+  /**
+   * Creates a new quorum request.
+   *
+   * @param attendees The people invited to the meeting. Must be non-null.
+   * @param minimumAttendees How many of them have to be free. Must be between 0 and the number of
+   *     distinct attendees.
+   * @param duration The length of the meeting in minutes.
+   */
+  public QuorumMeetingRequest(Collection<String> attendees, int minimumAttendees, long duration) {
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.attendees.addAll(attendees);
+
+    if (minimumAttendees < 0 || minimumAttendees > this.attendees.size()) {
+      throw new IllegalArgumentException(
+          "minimumAttendees must be between 0 and the number of attendees (inclusive).");
+    }
+
+    this.minimumAttendees = minimumAttendees;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns a read-only copy of the people invited to this meeting.
+   */
+  public Collection<String> getAttendees() {
+    return Collections.unmodifiableCollection(attendees);
+  }
+
+  /**
+   * Returns how many of the attendees have to be free for a time to work.
+   */
+  public int getMinimumAttendees() {
+    return minimumAttendees;
+  }
+
+  /**
+   * Returns the duration of the meeting in minutes.
+   */
+  public long getDuration() {
+    return duration;
+  }
+}
@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A series of events that repeats every few days, such as a daily standup or a weekly review.
+ * Like every time in a {@link HorizonCalendar}, the times of a series are measured in epoch
+ * minutes. A series is never stored as separate events: its occurrences are only worked out for
+ * the windows that are asked about, so a series that repeats forever costs no more than one that
+ * repeats twice. Recurring events are considered read-only.
+ */
+public final class RecurringEvent {
+  /** Repeat every day. */
+  public static final int DAILY = 1;
+
+  /** Repeat every seven days. */
+  public static final int WEEKLY = 7;
+
+  /** The number of occurrences of a series without an end. */
+  public static final int FOREVER = Integer.MAX_VALUE;
+
+  private static final long MINUTES_PER_DAY = 24 * 60;
+
+  private final String title;
+  private final TimeRange first;
+  private final int intervalDays;
+  private final int occurrences;
+  private final Set<String> attendees = new HashSet<>();
+  private final Set<Integer> exceptions = new HashSet<>();
+
+  /**
+   * Creates a new series without exceptions.
+   *
+   * @see #RecurringEvent(String, TimeRange, int, int, Collection, Collection)
+   */
+  public RecurringEvent(String title, TimeRange first, int intervalDays, int occurrences,
+      Collection<String> attendees) {
+    this(title, first, intervalDays, occurrences, attendees, Collections.emptySet());
+  }
+
+  /**
+   * Creates a new series.
+   *
+   * @param title The human-readable name for the series. Must be non-null.
+   * @param first The time of the first occurrence, in epoch minutes. Must be non-null.
+   * @param intervalDays How many days apart the occurrences are, such as {@link #DAILY} or
+   *     {@link #WEEKLY}. Must be positive.
+   * @param occurrences How many times the event happens, including any exceptions, or
+   *     {@link #FOREVER}. Must be positive.
+   * @param attendees The collection of people attending every occurrence. Must be non-null.
+   * @param exceptions The starts, in epoch minutes, of the occurrences that are cancelled. Must be
+   *     non-null.
+   */
+  public RecurringEvent(String title, TimeRange first, int intervalDays, int occurrences,
+      Collection<String> attendees, Collection<Integer> exceptions) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (intervalDays <= 0) {
+      throw new IllegalArgumentException("intervalDays must be positive");
+    }
+
+    if (occurrences <= 0) {
+      throw new IllegalArgumentException("occurrences must be positive");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    if (exceptions == null) {
+      throw new IllegalArgumentException("exceptions cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.first = first;
+    this.intervalDays = intervalDays;
+    this.occurrences = occurrences;
+    this.attendees.addAll(attendees);
+    this.exceptions.addAll(exceptions);
+  }
+
+  /**
+   * Returns the human-readable name for this series.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the {@code TimeRange} of the first occurrence.
+   */
+  public TimeRange getFirst() {
+    return first;
+  }
+
+  /**
+   * Returns how many days apart the occurrences are.
+   */
+  public int getIntervalDays() {
+    return intervalDays;
+  }
+
+  /**
+   * Returns how many times the event happens, or {@link #FOREVER}.
+   */
+  public int getOccurrences() {
+    return occurrences;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for every occurrence.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns a read-only set of the starts of the cancelled occurrences.
+   */
+  public Set<Integer> getExceptions() {
+    return Collections.unmodifiableSet(exceptions);
+  }
+
+  /**
+   * Calls {@code visitor} with every occurrence that overlaps {@code [from, to)}, in order. Only
+   * the occurrences inside the window are looked at, however long the series is.
+   */
+  void forEachOccurrence(int from, int to, IntervalTree.Visitor visitor) {
+    long period = intervalDays * MINUTES_PER_DAY;
+    long firstStart = first.start();
+    long firstEnd = first.end();
+
+    // Occurrence k runs from firstStart + k * period to firstEnd + k * period. It overlaps the
+    // window when it ends after from and starts before to.
+    long lowest = Math.max(0, Math.floorDiv(from - firstEnd, period) + 1);
+    long highest = Math.min(occurrences - 1L, Math.floorDiv(to - firstStart - 1, period));
+    for (long k = lowest; k <= highest; k++) {
+      int start = Math.toIntExact(firstStart + k * period);
+      if (!exceptions.contains(start)) {
+        visitor.visit(start, Math.toIntExact(firstEnd + k * period));
+      }
+    }
+  }
+}
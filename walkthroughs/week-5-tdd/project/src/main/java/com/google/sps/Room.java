@@ -0,0 +1,77 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+/**
+ * A meeting room that can be booked. A room is busy whenever an event lists its name among the
+ * attendees, the same way people are. Rooms are considered read-only.
+ */
+public final class Room {
+  private final String name;
+  private final int capacity;
+
+  /**
+   * Creates a new room.
+   *
+   * @param name The name of the room, as it appears in the attendees of events. Must be non-null.
+   * @param capacity How many people fit in the room. Must be positive.
+   */
+  public Room(String name, int capacity) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.name = name;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the name of the room.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns how many people fit in the room.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Room && equals(this, (Room) other);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Room: %s (%d)", name, capacity);
+  }
+
+  private static boolean equals(Room a, Room b) {
+    return a.name.equals(b.name) && a.capacity == b.capacity;
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pairs the free times of a group of attendees with rooms to hold the meeting in.
+ *
+ * <p>Rooms are tried from the smallest one that fits to the largest. A room's slots are the
+ * attendees' free times with the room's busy intervals subtracted, found with the same sweep as
+ * any other query. A slot is only kept if it allows a start time that no smaller room allows, and
+ * the search stops as soon as every possible start time has a room. Big rooms are therefore only
+ * offered when no smaller room will do, and are often never looked at.
+ */
+final class RoomSearch {
+  private final AttendeeCalendar calendar;
+  private final long duration;
+
+  // The start times that no room has been found for yet, as sorted, disjoint [start, end) ranges.
+  private int[] uncoveredStarts;
+  private int[] uncoveredEnds;
+  private int uncoveredCount;
+
+  /**
+   * Creates a search for a meeting of {@code duration} minutes, reading the rooms' busy times from
+   * {@code calendar}.
+   */
+  RoomSearch(AttendeeCalendar calendar, long duration) {
+    this.calendar = calendar;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the rooms in {@code rooms} that fit {@code headcount} people, smallest first. Rooms of
+   * the same size are ordered by name so that results are repeatable.
+   */
+  static List<Room> bestFitFirst(Collection<Room> rooms, int headcount) {
+    List<Room> fitting = new ArrayList<>();
+    for (Room room : rooms) {
+      if (room.getCapacity() >= headcount) {
+        fitting.add(room);
+      }
+    }
+    fitting.sort(Comparator.comparingInt(Room::getCapacity).thenComparing(Room::getName));
+    return fitting;
+  }
+
+  /**
+   * Finds the slots in which the attendees can meet in one of the rooms.
+   * @param attendeesBusy the merged busy intervals of the attendees
+   * @param attendeesFree the free times of the attendees that are long enough for the meeting
+   * @param rooms the rooms to try, best fit first
+   * @return the slots in chronological order; slots in different rooms may overlap
+   */
+  List<RoomSlot> find(BusyIntervals attendeesBusy, List<TimeRange> attendeesFree,
+      List<Room> rooms) {
+    // A meeting needs a minute to be held even if it asked for none.
+    int length = (int) Math.max(duration, 1);
+
+    uncoveredStarts = new int[attendeesFree.size()];
+    uncoveredEnds = new int[attendeesFree.size()];
+    uncoveredCount = 0;
+    for (TimeRange free : attendeesFree) {
+      uncoveredStarts[uncoveredCount] = free.start();
+      uncoveredEnds[uncoveredCount] = free.end() - length + 1;
+      uncoveredCount++;
+    }
+
+    List<RoomSlot> slots = new ArrayList<>();
+    for (Room room : rooms) {
+      // Every start time already has a room, so the bigger rooms can't add anything
+      if (uncoveredCount == 0) break;
+
+      for (TimeRange slot : freeTimes(attendeesBusy, attendeesFree, room)) {
+        if (cover(slot.start(), slot.end() - length + 1)) {
+          slots.add(new RoomSlot(slot, room));
+        }
+      }
+    }
+
+    slots.sort(Comparator.comparingInt((RoomSlot slot) -> slot.getWhen().start())
+        .thenComparingInt(slot -> slot.getRoom().getCapacity()));
+    return slots;
+  }
+
+  /**
+   * Returns the times when both the attendees and {@code room} are free.
+   */
+  private List<TimeRange> freeTimes(BusyIntervals attendeesBusy, List<TimeRange> attendeesFree,
+      Room room) {
+    BusyIntervals roomBusy = calendar.getBusyIntervals(room.getName());
+    if (roomBusy.size() == 0) return attendeesFree;
+
+    int total = attendeesBusy.size() + roomBusy.size();
+    int[] starts = new int[total];
+    int[] ends = new int[total];
+    int count = attendeesBusy.copyTo(starts, ends, 0);
+    count = roomBusy.copyTo(starts, ends, count);
+    return IntervalSweep.freeTimes(starts, ends, count, TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.end(), duration);
+  }
+
+  /**
+   * Marks the start times in {@code [from, to)} as having a room.
+   * @return whether any of them didn't have one yet
+   */
+  private boolean cover(int from, int to) {
+    boolean covered = false;
+    int[] starts = new int[uncoveredCount + 1];
+    int[] ends = new int[uncoveredCount + 1];
+    int count = 0;
+    for (int i = 0; i < uncoveredCount; i++) {
+      int start = uncoveredStarts[i];
+      int end = uncoveredEnds[i];
+      if (end <= from || start >= to) {
+        starts[count] = start;
+        ends[count++] = end;
+        continue;
+      }
+
+      // Keep the parts on either side of the covered range. Only one range can be split in two,
+      // so the arrays have room for one extra.
+      covered = true;
+      if (start < from) {
+        starts[count] = start;
+        ends[count++] = from;
+      }
+      if (to < end) {
+        starts[count] = to;
+        ends[count++] = end;
+      }
+    }
+
+    uncoveredStarts = starts;
+    uncoveredEnds = ends;
+    uncoveredCount = count;
+    return covered;
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AttendeeCalendar;
+import com.google.sps.CalendarStore;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests in one round trip. The requests are evaluated in
+ * parallel and the answers are written back in the same order as the requests.
+ *
+ * <p>The whole batch is read and checked before anything is written, so a malformed request, or a
+ * batch of more than 1000 requests, fails the batch with a 400. Reading stops at the first request
+ * past the limit, so an oversized body is never parsed to the end. A request that fails while it
+ * is being answered can't fail the batch, since earlier answers may already be sent; its answer is
+ * written as an {@code {"error": "..."}} object.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  // Keeps a single request from tying up the pool for everyone else.
+  static final int MAX_BATCH_SIZE = 1000;
+
+  private static final Type TIME_RANGES = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  // The query keeps no state between calls, so every task can share it.
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  private CalendarStore calendarStore;
+  private ForkJoinPool pool;
+
+  @Override
+  public void init() {
+    calendarStore = CalendarStoreListener.getStore(getServletContext());
+    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdown();
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    List<MeetingRequest> meetingRequests;
+    try {
+      meetingRequests = readBatch(request.getReader());
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // Answer the whole batch from one snapshot so that every answer agrees with the others, even
+    // if events change in the middle.
+    AttendeeCalendar calendar = calendarStore.snapshot();
+
+    // Start every query before waiting on any of them.
+    List<ForkJoinTask<Collection<TimeRange>>> answers = new ArrayList<>(meetingRequests.size());
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      answers.add(pool.submit(() -> findMeetingQuery.query(calendar, meetingRequest)));
+    }
+
+    response.setContentType("application/json;charset=UTF-8");
+    JsonWriter writer = new JsonWriter(
+        new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    writeAnswers(answers, writer);
+  }
+
+  /**
+   * Reads a JSON array of meeting requests. Each request is checked as it is read, and reading
+   * stops as soon as the batch turns out to be too big.
+   * @throws JsonParseException if the body isn't an array of at most {@link #MAX_BATCH_SIZE} valid
+   *     requests
+   */
+  static List<MeetingRequest> readBatch(Reader body) throws IOException {
+    JsonReader reader = new JsonReader(body);
+    List<MeetingRequest> meetingRequests = new ArrayList<>();
+    try {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        if (meetingRequests.size() == MAX_BATCH_SIZE) {
+          throw new JsonParseException(
+              "A batch can have at most " + MAX_BATCH_SIZE + " requests.");
+        }
+
+        MeetingRequest meetingRequest;
+        try {
+          meetingRequest = CalendarJson.GSON.fromJson(reader, MeetingRequest.class);
+        } catch (JsonParseException e) {
+          throw new JsonParseException(
+              "Request " + meetingRequests.size() + " is invalid: " + e.getMessage(), e);
+        }
+        if (meetingRequest == null) {
+          throw new JsonParseException("Request " + meetingRequests.size() + " cannot be null.");
+        }
+        meetingRequests.add(meetingRequest);
+      }
+      reader.endArray();
+    } catch (IllegalStateException | MalformedJsonException | EOFException e) {
+      // The body isn't JSON, isn't an array, or ends early.
+      throw new JsonParseException("Expected a JSON array of requests.", e);
+    }
+    return meetingRequests;
+  }
+
+  /**
+   * Writes each answer as soon as it and the ones before it are ready. An answer that failed is
+   * written as an error object in its place.
+   */
+  static void writeAnswers(List<ForkJoinTask<Collection<TimeRange>>> answers, JsonWriter writer)
+      throws IOException {
+    writer.beginArray();
+    for (ForkJoinTask<Collection<TimeRange>> answer : answers) {
+      Collection<TimeRange> times;
+      try {
+        times = answer.join();
+      } catch (RuntimeException e) {
+        writer.beginObject();
+        writer.name("error").value("Could not answer this request.");
+        writer.endObject();
+        writer.flush();
+        continue;
+      }
+
+      CalendarJson.GSON.toJson(times, TIME_RANGES, writer);
+      writer.flush();
+    }
+    writer.endArray();
+    writer.flush();
+  }
+}
@@ -0,0 +1,287 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.Room;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON support shared by the servlets. Events and time ranges are written by hand-written
+ * adapters instead of by reflection, in the same shape that reflection would give them:
+ * {@code {"start":480,"duration":30}} and {@code {"title":...,"when":...,"attendees":[...]}}.
+ * Rooms are read through their constructor, so a room with no name or a capacity below one is
+ * rejected instead of slipping past the constructor's checks. Meeting requests are read the same
+ * way: a list that is missing or null is left empty, and a null name or room in a list, or a
+ * negative duration, is rejected.
+ */
+final class CalendarJson {
+  static final Gson GSON = new GsonBuilder()
+      .registerTypeAdapter(TimeRange.class, new TimeRangeAdapter().nullSafe())
+      .registerTypeAdapter(Event.class, new EventAdapter().nullSafe())
+      .registerTypeAdapter(Room.class, new RoomAdapter().nullSafe())
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestAdapter().nullSafe())
+      .create();
+
+  private CalendarJson() {
+    // Disallow instances.
+  }
+
+  /**
+   * Writes {@code value} as JSON straight onto {@code out}, without building the whole document
+   * in memory first. The stream is flushed but not closed.
+   */
+  static void write(Object value, Type type, OutputStream out) throws IOException {
+    JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    GSON.toJson(value, type, writer);
+    writer.flush();
+  }
+
+  /** Reads and writes a TimeRange as its start and duration. */
+  private static final class TimeRangeAdapter extends TypeAdapter<TimeRange> {
+    @Override
+    public void write(JsonWriter out, TimeRange range) throws IOException {
+      out.beginObject();
+      out.name("start").value(range.start());
+      out.name("duration").value(range.duration());
+      out.endObject();
+    }
+
+    @Override
+    public TimeRange read(JsonReader in) throws IOException {
+      int start = 0;
+      int duration = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "start":
+            start = in.nextInt();
+            break;
+          case "duration":
+            duration = in.nextInt();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return TimeRange.fromStartDuration(start, duration);
+    }
+  }
+
+  /** Reads and writes an Event as its title, time and attendees. */
+  private static final class EventAdapter extends TypeAdapter<Event> {
+    private final TimeRangeAdapter timeRangeAdapter = new TimeRangeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Event event) throws IOException {
+      out.beginObject();
+      out.name("title").value(event.getTitle());
+      out.name("when");
+      timeRangeAdapter.write(out, event.getWhen());
+      out.name("attendees").beginArray();
+      for (String attendee : event.getAttendees()) {
+        out.value(attendee);
+      }
+      out.endArray();
+      out.endObject();
+    }
+
+    @Override
+    public Event read(JsonReader in) throws IOException {
+      String title = null;
+      TimeRange when = null;
+      List<String> attendees = new ArrayList<>();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "title":
+            title = in.nextString();
+            break;
+          case "when":
+            when = timeRangeAdapter.read(in);
+            break;
+          case "attendees":
+            in.beginArray();
+            while (in.hasNext()) {
+              attendees.add(in.nextString());
+            }
+            in.endArray();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      if (title == null || when == null) {
+        throw new JsonParseException("An event needs a title and a time.");
+      }
+      return new Event(title, when, attendees);
+    }
+  }
+
+  /** Reads and writes a Room as its name and capacity. */
+  private static final class RoomAdapter extends TypeAdapter<Room> {
+    @Override
+    public void write(JsonWriter out, Room room) throws IOException {
+      out.beginObject();
+      out.name("name").value(room.getName());
+      out.name("capacity").value(room.getCapacity());
+      out.endObject();
+    }
+
+    @Override
+    public Room read(JsonReader in) throws IOException {
+      String name = null;
+      int capacity = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "name":
+            name = in.nextString();
+            break;
+          case "capacity":
+            capacity = in.nextInt();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      try {
+        return new Room(name, capacity);
+      } catch (IllegalArgumentException e) {
+        throw new JsonParseException("Invalid room: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /** Reads and writes a MeetingRequest as its attendees, candidate rooms and duration. */
+  private static final class MeetingRequestAdapter extends TypeAdapter<MeetingRequest> {
+    private final RoomAdapter roomAdapter = new RoomAdapter();
+
+    @Override
+    public void write(JsonWriter out, MeetingRequest request) throws IOException {
+      out.beginObject();
+      out.name("attendees");
+      writeNames(out, request.getAttendees());
+      out.name("optional_attendees");
+      writeNames(out, request.getOptionalAttendees());
+      out.name("candidate_rooms").beginArray();
+      for (Room room : request.getCandidateRooms()) {
+        roomAdapter.write(out, room);
+      }
+      out.endArray();
+      out.name("duration").value(request.getDuration());
+      out.endObject();
+    }
+
+    @Override
+    public MeetingRequest read(JsonReader in) throws IOException {
+      List<String> attendees = new ArrayList<>();
+      List<String> optionalAttendees = new ArrayList<>();
+      List<Room> rooms = new ArrayList<>();
+      long duration = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "attendees":
+            readNames(in, attendees);
+            break;
+          case "optional_attendees":
+            readNames(in, optionalAttendees);
+            break;
+          case "candidate_rooms":
+            if (isNull(in)) break;
+            in.beginArray();
+            while (in.hasNext()) {
+              if (isNull(in)) {
+                throw new JsonParseException("A meeting request cannot list a null room.");
+              }
+              rooms.add(roomAdapter.read(in));
+            }
+            in.endArray();
+            break;
+          case "duration":
+            duration = in.nextLong();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      if (duration < 0) {
+        throw new JsonParseException("A meeting request cannot have a negative duration.");
+      }
+      MeetingRequest request = new MeetingRequest(attendees, duration);
+      for (String attendee : optionalAttendees) {
+        request.addOptionalAttendee(attendee);
+      }
+      for (Room room : rooms) {
+        request.addCandidateRoom(room);
+      }
+      return request;
+    }
+
+    private static void writeNames(JsonWriter out, Iterable<String> names) throws IOException {
+      out.beginArray();
+      for (String name : names) {
+        out.value(name);
+      }
+      out.endArray();
+    }
+
+    /** Reads a list of names into {@code names}, leaving it empty if the list is null. */
+    private static void readNames(JsonReader in, List<String> names) throws IOException {
+      if (isNull(in)) return;
+
+      in.beginArray();
+      while (in.hasNext()) {
+        if (isNull(in)) {
+          throw new JsonParseException("A meeting request cannot list a null attendee.");
+        }
+        names.add(in.nextString());
+      }
+      in.endArray();
+    }
+
+    /** Consumes the next value and returns true if it is null; otherwise leaves it in place. */
+    private static boolean isNull(JsonReader in) throws IOException {
+      if (in.peek() != JsonToken.NULL) return false;
+
+      in.nextNull();
+      return true;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarStore;
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingQueryCache;
+import java.util.Arrays;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Creates the calendar store that every servlet reads from when the app starts, seeded with the
+ * sample events, and the cache of meeting query answers against it.
+ */
+@WebListener
+public class CalendarStoreListener implements ServletContextListener {
+  private static final String ATTRIBUTE = CalendarStore.class.getName();
+  private static final String CACHE_ATTRIBUTE = MeetingQueryCache.class.getName();
+
+  // The most answers to remember. The same few meetings tend to be asked for over and over.
+  private static final int CACHE_SIZE = 1024;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    CalendarStore store = new CalendarStore(Arrays.asList(Events.events));
+    event.getServletContext().setAttribute(ATTRIBUTE, store);
+    event.getServletContext().setAttribute(CACHE_ATTRIBUTE,
+        new MeetingQueryCache(new FindMeetingQuery(), store, CACHE_SIZE));
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    event.getServletContext().removeAttribute(CACHE_ATTRIBUTE);
+    event.getServletContext().removeAttribute(ATTRIBUTE);
+  }
+
+  /**
+   * Returns the store shared by every servlet in {@code context}.
+   */
+  static CalendarStore getStore(ServletContext context) {
+    return (CalendarStore) context.getAttribute(ATTRIBUTE);
+  }
+
+  /**
+   * Returns the cache of meeting query answers shared by every servlet in {@code context}.
+   */
+  static MeetingQueryCache getQueryCache(ServletContext context) {
+    return (MeetingQueryCache) context.getAttribute(CACHE_ATTRIBUTE);
+  }
+}
@@ -12,11 +12,16 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.CalendarStore;
+import com.google.sps.Event;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -24,13 +29,44 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private static final Type EVENTS = new TypeToken<List<Event>>() {}.getType();
+
+  private CalendarStore calendarStore;
+
+  // The JSON of the last event list that was sent. The store hands out the same list until its
+  // events change, so the bytes can be sent again for as long as the list is the same.
+  private volatile SerializedEvents cached;
+
+  @Override
+  public void init() {
+    calendarStore = CalendarStoreListener.getStore(getServletContext());
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    List<Event> events = calendarStore.getEvents();
+    SerializedEvents serialized = cached;
+    if (serialized == null || serialized.events != events) {
+      ByteArrayOutputStream json = new ByteArrayOutputStream();
+      CalendarJson.write(events, EVENTS, json);
+      serialized = new SerializedEvents(events, json.toByteArray());
+      cached = serialized;
+    }
 
     // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setContentType("application/json;charset=UTF-8");
+    response.setContentLength(serialized.json.length);
+    response.getOutputStream().write(serialized.json);
+  }
+
+  /** An event list and its JSON. */
+  private static final class SerializedEvents {
+    private final List<Event> events;
+    private final byte[] json;
+
+    private SerializedEvents(List<Event> events, byte[] json) {
+      this.events = events;
+      this.json = json;
+    }
   }
 }
@@ -14,13 +14,13 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingQueryCache;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.util.Arrays;
+import java.lang.reflect.Type;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -29,23 +29,35 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private static final Type TIME_RANGES = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  private MeetingQueryCache meetingQueryCache;
+
   @Override
-  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+  public void init() {
+    meetingQueryCache = CalendarStoreListener.getQueryCache(getServletContext());
+  }
 
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = CalendarJson.GSON.fromJson(request.getReader(), MeetingRequest.class);
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
 
     // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
-
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    Collection<TimeRange> answer = meetingQueryCache.query(meetingRequest);
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    // Write the times as JSON straight onto the response
+    response.setContentType("application/json;charset=UTF-8");
+    CalendarJson.write(answer, TIME_RANGES, response.getOutputStream());
   }
 }
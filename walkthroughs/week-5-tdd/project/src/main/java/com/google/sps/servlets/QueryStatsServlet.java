@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingQueryCache;
+import com.google.sps.QueryStats;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how long each phase of the meeting queries has taken, and how well the answer cache is
+ * doing, as JSON. DELETE starts the phase counts over; the cache counts run for the life of the
+ * cache. Phase stats are only collected when the server runs with {@code -Dsps.queryStats=true}.
+ */
+@WebServlet("/query-stats")
+public class QueryStatsServlet extends HttpServlet {
+  private static final Gson GSON = new Gson();
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("enabled", QueryStats.isEnabled());
+    stats.put("phases", QueryStats.summarize());
+
+    // The hit ratio and evictions against the size say whether the cache is big enough.
+    MeetingQueryCache cache = CalendarStoreListener.getQueryCache(getServletContext());
+    Map<String, Object> cacheStats = new LinkedHashMap<>();
+    cacheStats.put("size", cache.size());
+    cacheStats.put("hits", cache.getHitCount());
+    cacheStats.put("misses", cache.getMissCount());
+    cacheStats.put("invalidations", cache.getInvalidationCount());
+    cacheStats.put("evictions", cache.getEvictionCount());
+    stats.put("cache", cacheStats);
+
+    response.setContentType("application/json");
+    response.getWriter().println(GSON.toJson(stats));
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response) {
+    QueryStats.reset();
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeCalendarIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void busyIntervalsAreMergedPerAttendee() {
+    // Events  : |--A--|
+    //              |--A+B--|    |--A--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(0, 60), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(30, 60),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(200, 60), Arrays.asList(PERSON_A)));
+
+    AttendeeCalendarIndex index = new AttendeeCalendarIndex(events);
+
+    BusyIntervals personA = index.getBusyIntervals(PERSON_A);
+    Assert.assertEquals(2, personA.size());
+    Assert.assertEquals(0, personA.start(0));
+    Assert.assertEquals(90, personA.end(0));
+    Assert.assertEquals(200, personA.start(1));
+    Assert.assertEquals(260, personA.end(1));
+
+    BusyIntervals personB = index.getBusyIntervals(PERSON_B);
+    Assert.assertEquals(1, personB.size());
+    Assert.assertEquals(30, personB.start(0));
+    Assert.assertEquals(90, personB.end(0));
+  }
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() {
+    AttendeeCalendarIndex index = new AttendeeCalendarIndex(Arrays.asList(Events.events));
+
+    Assert.assertEquals(0, index.getBusyIntervals("Nobody").size());
+  }
+
+  @Test
+  public void indexQueryMatchesEventQuery() {
+    List<Event> events = Arrays.asList(Events.events);
+    AttendeeCalendarIndex index = new AttendeeCalendarIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Amelia", "Isabella", "Logan"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Emma");
+
+    Assert.assertEquals(query.query(events, request), query.query(index, request));
+  }
+}
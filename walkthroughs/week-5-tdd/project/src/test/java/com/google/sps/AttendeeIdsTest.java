@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIdsTest {
+  @Test
+  public void sameNameGetsSameId() {
+    AttendeeIds ids = new AttendeeIds();
+    int id = ids.intern("Person A");
+
+    Assert.assertEquals(id, ids.intern(new String("Person A")));
+    Assert.assertEquals(id, ids.find("Person A"));
+    Assert.assertEquals(1, ids.size());
+  }
+
+  @Test
+  public void unknownNameHasNoId() {
+    AttendeeIds ids = new AttendeeIds();
+    ids.intern("Person A");
+
+    Assert.assertEquals(AttendeeIds.NONE, ids.find("Nobody"));
+  }
+
+  @Test
+  public void tablesNumberTheirNamesIndependently() {
+    AttendeeIds first = new AttendeeIds();
+    first.intern("Person A");
+    AttendeeIds second = new AttendeeIds();
+
+    Assert.assertEquals(0, second.intern("Person B"));
+    Assert.assertEquals(AttendeeIds.NONE, second.find("Person A"));
+    Assert.assertEquals(AttendeeIds.NONE, first.find("Person B"));
+  }
+
+  @Test
+  public void internAllSortsAndDropsDuplicates() {
+    AttendeeIds ids = new AttendeeIds();
+    ids.intern("Person A");
+
+    Assert.assertArrayEquals(new int[] {1, 2},
+        ids.internAll(Arrays.asList("Person C", "Person B", "Person C")));
+  }
+
+  @Test
+  public void packedRangeKeepsStartAndDuration() {
+    long range = PackedTimeRange.pack(TimeRange.fromStartDuration(480, 30));
+
+    Assert.assertEquals(480, PackedTimeRange.start(range));
+    Assert.assertEquals(30, PackedTimeRange.duration(range));
+    Assert.assertEquals(510, PackedTimeRange.end(range));
+  }
+}
@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final List<String> PEOPLE =
+      Arrays.asList("Person A", "Person B", "Person C", "Zoë", "東京");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void snapshotMatchesIndex() throws IOException {
+    Random random = new Random(5);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(90)),
+          PEOPLE.subList(random.nextInt(3), 3 + random.nextInt(3))));
+    }
+    Path path = folder.newFile().toPath();
+    CalendarSnapshot.write(events, path);
+
+    CalendarSnapshot snapshot = CalendarSnapshot.open(path);
+    AttendeeCalendarIndex index = new AttendeeCalendarIndex(events);
+    for (String person : PEOPLE) {
+      assertSameIntervals(index.getBusyIntervals(person), snapshot.getBusyIntervals(person));
+    }
+
+    MeetingRequest request = new MeetingRequest(PEOPLE.subList(0, 2), 15);
+    Assert.assertEquals(new FindMeetingQuery().query(index, request),
+        new FindMeetingQuery().query(snapshot, request));
+  }
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() throws IOException {
+    Path path = folder.newFile().toPath();
+    CalendarSnapshot.write(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(0, 30), Arrays.asList("Person A"))), path);
+
+    Assert.assertEquals(0, CalendarSnapshot.open(path).getBusyIntervals("Person B").size());
+  }
+
+  @Test
+  public void emptyCalendar() throws IOException {
+    Path path = folder.newFile().toPath();
+    CalendarSnapshot.write(Arrays.asList(), path);
+
+    Assert.assertEquals(0, CalendarSnapshot.open(path).getBusyIntervals("Person A").size());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws IOException {
+    Path path = folder.newFile().toPath();
+    Files.write(path, "[{\"title\":\"Event 1\"}]".getBytes("UTF-8"));
+
+    CalendarSnapshot.open(path);
+  }
+
+  private static void assertSameIntervals(BusyIntervals expected, BusyIntervals actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(expected.start(i), actual.start(i));
+      Assert.assertEquals(expected.end(i), actual.end(i));
+    }
+  }
+}
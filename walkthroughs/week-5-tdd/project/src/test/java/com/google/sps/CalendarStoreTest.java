@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarStoreTest {
+  private static final List<String> PEOPLE =
+      Arrays.asList("Person A", "Person B", "Person C", "Person D");
+
+  @Test
+  public void removingAnEventFreesItsAttendees() {
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(100, 50),
+        Arrays.asList(PEOPLE.get(0)));
+    CalendarStore store = new CalendarStore(Arrays.asList(event));
+
+    Assert.assertEquals(1, store.getBusyIntervals(PEOPLE.get(0)).size());
+    Assert.assertTrue(store.removeEvent(event));
+    Assert.assertEquals(0, store.getBusyIntervals(PEOPLE.get(0)).size());
+    Assert.assertFalse(store.removeEvent(event));
+  }
+
+  @Test
+  public void removingOneOfTwoOverlappingEventsKeepsTheOther() {
+    // |----1----|
+    //      |----2----|
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(0, 100, false),
+        Arrays.asList(PEOPLE.get(0)));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(50, 150, false),
+        Arrays.asList(PEOPLE.get(0)));
+    CalendarStore store = new CalendarStore(Arrays.asList(first, second));
+
+    store.removeEvent(first);
+
+    BusyIntervals busy = store.getBusyIntervals(PEOPLE.get(0));
+    Assert.assertEquals(1, busy.size());
+    Assert.assertEquals(50, busy.start(0));
+    Assert.assertEquals(150, busy.end(0));
+  }
+
+  @Test
+  public void incrementalUpdatesMatchARebuiltIndex() {
+    Random random = new Random(11);
+    CalendarStore store = new CalendarStore();
+    List<Event> live = new ArrayList<>();
+
+    for (int step = 0; step < 2000; step++) {
+      if (!live.isEmpty() && random.nextInt(3) == 0) {
+        Event removed = live.remove(random.nextInt(live.size()));
+        Assert.assertTrue(store.removeEvent(removed));
+      } else {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        Event added = new Event("Event " + step,
+            TimeRange.fromStartDuration(start, random.nextInt(90)),
+            PEOPLE.subList(random.nextInt(2), 2 + random.nextInt(3)));
+        Assert.assertTrue(store.addEvent(added));
+        live.add(added);
+      }
+
+      AttendeeCalendarIndex rebuilt = new AttendeeCalendarIndex(live);
+      for (String person : PEOPLE) {
+        assertSameIntervals(rebuilt.getBusyIntervals(person), store.getBusyIntervals(person));
+      }
+    }
+  }
+
+  @Test
+  public void batchUpdatesAreAllOrNothing() {
+    CalendarStore store = new CalendarStore();
+    AttendeeCalendar before = store.snapshot();
+
+    store.update(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(100, 50), Arrays.asList(PEOPLE.get(0))),
+        new Event("Event 2", TimeRange.fromStartDuration(100, 50), Arrays.asList(PEOPLE.get(1)))),
+        Arrays.asList());
+
+    Assert.assertEquals(0, before.getBusyIntervals(PEOPLE.get(0)).size());
+    Assert.assertEquals(1, store.getBusyIntervals(PEOPLE.get(0)).size());
+    Assert.assertEquals(1, store.getBusyIntervals(PEOPLE.get(1)).size());
+    Assert.assertEquals(2, store.getEvents().size());
+  }
+
+  @Test
+  public void queriesNeverSeeHalfAppliedUpdates() throws Exception {
+    // A writer keeps moving a pair of events, one for Person A and one for Person B, to a new time
+    // in a single batch. Person A and Person B must look equally busy in every snapshot, and a
+    // query for both of them must always find exactly the free time either one has.
+    CalendarStore store = new CalendarStore();
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(5);
+    try {
+      Future<?> writer = executor.submit(() -> {
+        Random random = new Random(3);
+        List<Event> pair = Arrays.asList();
+        for (int step = 0; step < 5000; step++) {
+          TimeRange when = TimeRange.fromStartDuration(
+              random.nextInt(TimeRange.WHOLE_DAY.duration() - 60), 1 + random.nextInt(60));
+          List<Event> next = Arrays.asList(
+              new Event("A " + step, when, Arrays.asList(PEOPLE.get(0))),
+              new Event("B " + step, when, Arrays.asList(PEOPLE.get(1))));
+          store.update(next, pair);
+          pair = next;
+        }
+        done.set(true);
+      });
+
+      List<Future<?>> readers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        readers.add(executor.submit(() -> {
+          FindMeetingQuery query = new FindMeetingQuery();
+          MeetingRequest both = new MeetingRequest(PEOPLE.subList(0, 2), 1);
+          MeetingRequest justA = new MeetingRequest(PEOPLE.subList(0, 1), 1);
+          while (!done.get()) {
+            AttendeeCalendar snapshot = store.snapshot();
+            assertSameIntervals(snapshot.getBusyIntervals(PEOPLE.get(0)),
+                snapshot.getBusyIntervals(PEOPLE.get(1)));
+            Assert.assertEquals(query.query(snapshot, justA), query.query(snapshot, both));
+
+            // Every query on the live store reads one snapshot, so A and B always agree.
+            Assert.assertTrue(query.query(store, both).size() <= 2);
+          }
+        }));
+      }
+
+      writer.get(1, TimeUnit.MINUTES);
+      for (Future<?> reader : readers) {
+        reader.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void assertSameIntervals(BusyIntervals expected, BusyIntervals actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(expected.start(i), actual.start(i));
+      Assert.assertEquals(expected.end(i), actual.end(i));
+    }
+  }
+}
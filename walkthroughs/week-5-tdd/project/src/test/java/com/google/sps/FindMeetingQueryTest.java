@@ -14,11 +14,13 @@
 
 package com.google.sps;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -437,5 +439,340 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void chainedOverlappingEvents() {
+    // Each event overlaps the next one but not the one before it, so the busy block has to keep
+    // growing past the end of the first event.
+    //
+    // Events  :       |--A--|
+    //                    |----B----|
+    //                           |--C--|
+    // Day     : |---------------------------|
+    // Options : |--1--|               |--2--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizingOptionalKeepsTheOptionalAttendeesWhoCanMakeIt() {
+    // C is busy all day, so no time works for every optional attendee. The mandatory attendee and
+    // B can still meet, so B shouldn't be dropped along with C.
+    //
+    // Events  :       |--A--|
+    // Optional:                   |--B--|
+    //           |--------------C--------------|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryMaximizingOptional(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizingOptionalPicksTheTimesMostOptionalAttendeesCanMake() {
+    // The optional attendees are never free at the same time, so the best any time can do is one
+    // of them. The gap where neither can come is left out.
+    //
+    // Optional: |------B------|
+    //                     |-------------C-------------|
+    // Day     : |-------------------------------------|
+    // Options : |----1----|       |---------2---------|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryMaximizingOptional(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizingOptionalMatchesQueryWhenEveryoneCanMeet() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Assert.assertEquals(query.query(events, request), query.queryMaximizingOptional(events, request));
+  }
+
+  @Test
+  public void quorumNeedsOnlySomeAttendees() {
+    // Any two of the three people are enough, so a time only fails when two of them are busy
+    // during it. A meeting at 9:30 works (A and C), but one that starts a little later would run
+    // into C's event while B is still busy. The two options after the overlap each work on their
+    // own even though they touch.
+    //
+    // Events  :       |----A----|
+    //                      |----B----|
+    //                                |--C--|
+    // Day     : |------------------------------------|
+    // Options : |---1---|       |-2-|
+    //                                |-------3-------|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C)));
+    QuorumMeetingRequest request = new QuorumMeetingRequest(
+        Arrays.asList(PERSON_A, PERSON_B, PERSON_C), 2, DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void quorumOfEveryoneMatchesQuery() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    List<String> attendees = Arrays.asList(PERSON_A, PERSON_B);
+
+    Assert.assertEquals(query.query(events, new MeetingRequest(attendees, DURATION_30_MINUTES)),
+        query.query(events, new QuorumMeetingRequest(attendees, 2, DURATION_30_MINUTES)));
+  }
+
+  @Test
+  public void horizonQuerySpansSeveralDays() {
+    // A 36-hour meeting in a three-day window. Person A is busy on the morning of the second day,
+    // which leaves too little time before it, so the meeting can only start after that.
+    //
+    // Events  :         |A|
+    // Window  : |--day 1--|--day 2--|--day 3--|
+    // Options :           |--------1--------|
+
+    int day1 = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2020, 1, 1, 0, 0));
+    int day2 = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2020, 1, 2, 0, 0));
+    int day2At0930 = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2020, 1, 2, 9, 30));
+    int day4 = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2020, 1, 4, 0, 0));
+
+    HorizonCalendar calendar = new HorizonCalendar(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(day2 + TIME_0800AM, day2At0930, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(day1 + TIME_0900AM, DURATION_1_HOUR),
+            Arrays.asList(PERSON_B))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 36 * DURATION_1_HOUR);
+
+    Collection<TimeRange> actual =
+        query.query(calendar, request, TimeRange.fromStartEnd(day1, day4, false));
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(day2At0930, day4, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void lazyQueryStopsAtTheEarliestTimes() {
+    // Have each person have different events. Only the earliest two options are asked for.
+    //
+    // Events  :       |--A--|     |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.queryLazily(events, request).limit(2).collect(Collectors.toList());
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(expected,
+        query.queryLazily(new AttendeeCalendarIndex(events), request).limit(2)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void horizonQueryAvoidsRecurringEvents() {
+    // Person A has a daily standup from 9:00 to 9:30 that never ends. Over two days, an hour-long
+    // meeting has to go around both occurrences.
+    //
+    // Events  :     |A|       |A|
+    // Window  : |--day 1--|--day 2--|
+    // Options : |1|     |--2--|   |3|
+
+    int day1 = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2030, 6, 1, 0, 0));
+    int day3 = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2030, 6, 3, 0, 0));
+    int firstStandup = HorizonCalendar.toEpochMinutes(LocalDateTime.of(2020, 1, 1, 9, 0));
+    int oneDay = 24 * DURATION_1_HOUR;
+
+    HorizonCalendar calendar = new HorizonCalendar(Arrays.asList(), Arrays.asList(
+        new RecurringEvent("Standup",
+            TimeRange.fromStartDuration(firstStandup, DURATION_30_MINUTES),
+            RecurringEvent.DAILY, RecurringEvent.FOREVER, Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual =
+        query.query(calendar, request, TimeRange.fromStartEnd(day1, day3, false));
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(day1, day1 + TIME_0900AM, false),
+            TimeRange.fromStartEnd(day1 + TIME_0930AM, day1 + oneDay + TIME_0900AM, false),
+            TimeRange.fromStartEnd(day1 + oneDay + TIME_0930AM, day3, false));
+
+    Assert.assertEquals(expected, actual);
+    // The same window again is answered from the cached expansion.
+    Assert.assertEquals(expected,
+        query.query(calendar, request, TimeRange.fromStartEnd(day1, day3, false)));
+  }
+
+  @Test
+  public void roomsAreOfferedBestFitFirst() {
+    // The small room doesn't fit both attendees. The medium room is booked over lunch, so only the
+    // large room can hold a meeting that starts during lunch.
+    //
+    // Events  :       |A|          |Medium|
+    // Day     : |-----------------------------|
+    // Medium  : |--1--| |----2----|        |-3-|
+    // Large   :         |-------------4-------|
+
+    Room small = new Room("Small", 1);
+    Room medium = new Room("Medium", 4);
+    Room large = new Room("Large", 10);
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    int onePm = TimeRange.getTimeInMinutes(13, 0);
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Lunch", TimeRange.fromStartEnd(noon, onePm, false),
+            Arrays.asList(medium.getName())));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+    request.addCandidateRoom(large);
+    request.addCandidateRoom(small);
+    request.addCandidateRoom(medium);
+
+    List<RoomSlot> actual = query.queryWithRooms(events, request);
+    List<RoomSlot> expected = Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), medium),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0830AM, noon, false), medium),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true), large),
+        new RoomSlot(TimeRange.fromStartEnd(onePm, TimeRange.END_OF_DAY, true), medium));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void biggerRoomsAreSkippedOnceEveryTimeHasARoom() {
+    Room medium = new Room("Medium", 4);
+    Room large = new Room("Large", 10);
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addCandidateRoom(large);
+    request.addCandidateRoom(medium);
+
+    List<RoomSlot> actual = query.queryWithRooms(events, request);
+    List<RoomSlot> expected = Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), medium),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true), medium));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noRoomIsBigEnough() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    request.addCandidateRoom(new Room("Small", 1));
+
+    Assert.assertEquals(Arrays.asList(), query.queryWithRooms(NO_EVENTS, request));
+  }
+
+  @Test
+  public void noRoomIsBigEnoughForOptionalAttendees() {
+    // Only the mandatory attendees fit in the room, so the optional attendee is dropped.
+    Room small = new Room("Small", 2);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    request.addCandidateRoom(small);
+
+    List<RoomSlot> actual = query.queryWithRooms(NO_EVENTS, request);
+    List<RoomSlot> expected = Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, small));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void roomsAreSizedForTheMandatoryAttendeesAfterFallingBack() {
+    // Everyone is free, but the only room that fits the optional attendee as well is booked all
+    // day. The meeting falls back to the mandatory attendee, who fits in the small room.
+    Room small = new Room("Small", 1);
+    Room medium = new Room("Medium", 2);
+    Collection<Event> events = Arrays.asList(
+        new Event("Booked", TimeRange.WHOLE_DAY, Arrays.asList(medium.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addCandidateRoom(medium);
+    request.addCandidateRoom(small);
+
+    List<RoomSlot> actual = query.queryWithRooms(events, request);
+    List<RoomSlot> expected = Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, small));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class FreeTimeIteratorTest {
+  private static final List<String> PEOPLE =
+      Arrays.asList("Person A", "Person B", "Person C", "Person D", "Person E");
+
+  @Test
+  public void heapHandsOutRangesByStart() {
+    long[] ranges = {
+        PackedTimeRange.pack(300, 10), PackedTimeRange.pack(100, 10), PackedTimeRange.pack(200, 10)};
+    FreeTimeIterator.BusyQueue queue = FreeTimeIterator.heapOf(ranges, ranges.length);
+
+    Assert.assertEquals(100, PackedTimeRange.start(queue.poll()));
+    Assert.assertEquals(200, PackedTimeRange.start(queue.poll()));
+    Assert.assertEquals(300, PackedTimeRange.start(queue.poll()));
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void touchingIntervalsLeaveNoGap() {
+    BusyIntervals first = BusyIntervals.copyOf(new int[] {100}, new int[] {200}, 1);
+    BusyIntervals second = BusyIntervals.copyOf(new int[] {200}, new int[] {300}, 1);
+    FreeTimeIterator iterator = new FreeTimeIterator(
+        FreeTimeIterator.merging(new BusyIntervals[] {first, second}), 0, 1440, 1);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(0, 100, false), iterator.next());
+    Assert.assertEquals(TimeRange.fromStartEnd(300, 1440, false), iterator.next());
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void lazyQueryMatchesQueryOnRandomCalendars() {
+    Random random = new Random(7);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    for (int round = 0; round < 200; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(120);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            Arrays.asList(PEOPLE.get(random.nextInt(PEOPLE.size())))));
+      }
+      AttendeeCalendarIndex index = new AttendeeCalendarIndex(events);
+
+      MeetingRequest request = new MeetingRequest(PEOPLE.subList(0, 2), random.nextInt(300));
+      request.addOptionalAttendee(PEOPLE.get(2 + random.nextInt(3)));
+
+      Assert.assertEquals(query.query(events, request),
+          query.queryLazily(events, request).collect(Collectors.toList()));
+      Assert.assertEquals(query.query(index, request),
+          query.queryLazily(index, request).collect(Collectors.toList()));
+    }
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalSweepTest {
+  @Test
+  public void mergeCombinesOverlappingAndTouchingIntervals() {
+    // |---|  |---|
+    //   |---|    |--|     |---|
+    int[] starts = {100, 0, 50, 150, 300};
+    int[] ends = {150, 60, 110, 170, 350};
+
+    int merged = IntervalSweep.merge(starts, ends, starts.length);
+
+    Assert.assertEquals(2, merged);
+    Assert.assertArrayEquals(new int[] {0, 300}, Arrays.copyOf(starts, merged));
+    Assert.assertArrayEquals(new int[] {170, 350}, Arrays.copyOf(ends, merged));
+  }
+
+  @Test
+  public void mergeKeepsNestedIntervalsInsideTheirParent() {
+    // |-----------|
+    //   |--|  |--|
+    int[] starts = {0, 10, 40};
+    int[] ends = {100, 20, 60};
+
+    int merged = IntervalSweep.merge(starts, ends, starts.length);
+
+    Assert.assertEquals(1, merged);
+    Assert.assertEquals(0, starts[0]);
+    Assert.assertEquals(100, ends[0]);
+  }
+
+  @Test
+  public void mergeOnlyLooksAtTheGivenCount() {
+    int[] starts = {200, 0, 5};
+    int[] ends = {300, 10, 500};
+
+    int merged = IntervalSweep.merge(starts, ends, 2);
+
+    Assert.assertEquals(2, merged);
+    Assert.assertArrayEquals(new int[] {0, 200}, Arrays.copyOf(starts, merged));
+    Assert.assertArrayEquals(new int[] {10, 300}, Arrays.copyOf(ends, merged));
+  }
+
+  @Test
+  public void freeTimesStayInsideTheWindow() {
+    // Busy    : |--|      |---------|
+    // Window  :     |----------|
+    // Options :     |----|
+    int[] starts = {0, 300};
+    int[] ends = {100, 900};
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(200, 300, false)),
+        IntervalSweep.freeTimes(starts, ends, starts.length, 200, 600, 0));
+  }
+
+  @Test
+  public void freeTimesDropShortGaps() {
+    int[] starts = {100, 130, 380};
+    int[] ends = {120, 300, 410};
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(0, 100, false),
+        TimeRange.fromStartEnd(410, 1440, false)),
+        IntervalSweep.freeTimes(starts, ends, starts.length, 0, 1440, 100));
+  }
+}
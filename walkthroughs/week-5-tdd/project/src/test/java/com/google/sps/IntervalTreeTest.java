@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalTreeTest {
+  @Test
+  public void emptyTreeHasNoOverlaps() {
+    List<String> visited = new ArrayList<>();
+    IntervalTree.EMPTY.forEachOverlapping(0, 100, (start, end) -> visited.add(start + "-" + end));
+
+    Assert.assertTrue(visited.isEmpty());
+  }
+
+  @Test
+  public void touchingIntervalsDoNotOverlap() {
+    int[] starts = {0, 100, 200};
+    int[] ends = {100, 200, 300};
+    IntervalTree tree = new IntervalTree(starts, ends, starts.length);
+
+    List<String> visited = new ArrayList<>();
+    tree.forEachOverlapping(100, 200, (start, end) -> visited.add(start + "-" + end));
+
+    Assert.assertEquals(1, visited.size());
+    Assert.assertEquals("100-200", visited.get(0));
+  }
+
+  @Test
+  public void findsTheSameIntervalsAsAScan() {
+    Random random = new Random(7);
+    int count = 500;
+    int[] starts = new int[count];
+    int[] ends = new int[count];
+    for (int i = 0; i < count; i++) {
+      starts[i] = random.nextInt(20000);
+      ends[i] = starts[i] + 1 + random.nextInt(i % 10 == 0 ? 3000 : 60);
+    }
+    IntervalTree tree = new IntervalTree(starts, ends, count);
+
+    for (int round = 0; round < 100; round++) {
+      int from = random.nextInt(20000);
+      int to = from + random.nextInt(2000);
+
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        if (starts[i] < to && ends[i] > from) {
+          expected.add(starts[i] + "-" + ends[i]);
+        }
+      }
+      List<String> actual = new ArrayList<>();
+      tree.forEachOverlapping(from, to, (start, end) -> actual.add(start + "-" + end));
+
+      expected.sort(null);
+      actual.sort(null);
+      Assert.assertEquals(expected, actual);
+    }
+  }
+}
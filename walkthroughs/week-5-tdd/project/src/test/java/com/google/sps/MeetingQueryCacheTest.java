@@ -0,0 +1,98 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingQueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private CalendarStore store;
+  private MeetingQueryCache cache;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore();
+    cache = new MeetingQueryCache(new FindMeetingQuery(), store, 2);
+  }
+
+  @Test
+  public void attendeeOrderDoesNotMatter() {
+    Collection<TimeRange> first =
+        cache.query(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+    Collection<TimeRange> second =
+        cache.query(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void changingAnAttendeesEventsInvalidatesTheirAnswers() {
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    cache.query(requestA);
+    cache.query(requestB);
+
+    store.addEvent(new Event("Event 1", TimeRange.fromStartDuration(0, 60),
+        Arrays.asList(PERSON_A)));
+
+    Collection<TimeRange> actual = cache.query(requestA);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(60, TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(1, cache.getInvalidationCount());
+
+    // Person B's answer didn't depend on the new event.
+    cache.query(requestB);
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(3, cache.getMissCount());
+  }
+
+  @Test
+  public void leastRecentlyUsedAnswerIsEvicted() {
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest requestBoth =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    cache.query(requestA);
+    cache.query(requestB);
+    // Using A's answer again leaves B's as the oldest.
+    cache.query(requestA);
+    cache.query(requestBoth);
+
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(1, cache.getEvictionCount());
+
+    cache.query(requestA);
+    Assert.assertEquals(2, cache.getHitCount());
+    cache.query(requestB);
+    Assert.assertEquals(4, cache.getMissCount());
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  private static final List<String> PEOPLE =
+      Arrays.asList("Person A", "Person B", "Person C", "Person D", "Person E");
+
+  @Test
+  public void rangesAcrossWordBoundaries() {
+    long[] mask = MinuteBitmap.newMask();
+    MinuteBitmap.setRange(mask, 60, 200);
+    MinuteBitmap.setRange(mask, 1400, 1440);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 60, false), TimeRange.fromStartEnd(200, 1400, false)),
+        MinuteBitmap.freeTimes(mask, 0));
+  }
+
+  @Test
+  public void rangesOutsideTheDayAreIgnored() {
+    long[] mask = MinuteBitmap.newMask();
+    MinuteBitmap.setRange(mask, -30, 30);
+    MinuteBitmap.setRange(mask, 1430, 2000);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(30, 1430, false)),
+        MinuteBitmap.freeTimes(mask, 0));
+  }
+
+  @Test
+  public void emptyMaskIsTheWholeDay() {
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        MinuteBitmap.freeTimes(MinuteBitmap.newMask(), TimeRange.WHOLE_DAY.duration()));
+  }
+
+  @Test
+  public void matchesIntervalSweepOnRandomCalendars() {
+    Random random = new Random(42);
+    FindMeetingQuery sweep = new FindMeetingQuery(FindMeetingQuery.Strategy.INTERVAL_SWEEP);
+    FindMeetingQuery bitmap = new FindMeetingQuery(FindMeetingQuery.Strategy.MINUTE_BITMAP);
+
+    for (int round = 0; round < 200; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(120);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            Arrays.asList(PEOPLE.get(random.nextInt(PEOPLE.size())))));
+      }
+      AttendeeCalendarIndex index = new AttendeeCalendarIndex(events);
+
+      MeetingRequest request = new MeetingRequest(PEOPLE.subList(0, 2), random.nextInt(90));
+      request.addOptionalAttendee(PEOPLE.get(2 + random.nextInt(3)));
+
+      Assert.assertEquals(sweep.query(events, request), bitmap.query(events, request));
+      Assert.assertEquals(sweep.query(index, request), bitmap.query(index, request));
+    }
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PersistentMapTest {
+
+  @Test
+  public void randomUpdatesMatchAHashMap() {
+    Random random = new Random(5);
+    Map<Integer, Integer> expected = new HashMap<>();
+    PersistentMap<Integer, Integer> actual = PersistentMap.empty();
+
+    for (int step = 0; step < 20000; step++) {
+      int key = random.nextInt(2000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        actual = actual.without(key);
+      } else {
+        expected.put(key, step);
+        actual = actual.with(key, step);
+      }
+      Assert.assertEquals(expected.size(), actual.size());
+    }
+
+    assertSameEntries(expected, actual);
+  }
+
+  @Test
+  public void updatesLeaveOlderMapsAlone() {
+    PersistentMap<String, Integer> before = PersistentMap.<String, Integer>empty()
+        .with("Person A", 1)
+        .with("Person B", 2);
+
+    PersistentMap<String, Integer> after = before.with("Person A", 3).without("Person B");
+
+    Assert.assertEquals(Integer.valueOf(1), before.get("Person A"));
+    Assert.assertEquals(Integer.valueOf(2), before.get("Person B"));
+    Assert.assertEquals(Integer.valueOf(3), after.get("Person A"));
+    Assert.assertNull(after.get("Person B"));
+  }
+
+  @Test
+  public void unchangedUpdatesReturnTheSameMap() {
+    PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().with("Person A", 1);
+
+    Assert.assertSame(map, map.with("Person A", map.get("Person A")));
+    Assert.assertSame(map, map.without("Person B"));
+  }
+
+  @Test
+  public void keysWithEqualHashesAreKeptApart() {
+    Map<Collider, Integer> expected = new HashMap<>();
+    PersistentMap<Collider, Integer> actual = PersistentMap.empty();
+    List<Collider> keys = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      // Ten keys per hash, and hashes that only differ in their top bits.
+      Collider key = new Collider(i, (i % 5) << 30);
+      keys.add(key);
+      expected.put(key, i);
+      actual = actual.with(key, i);
+    }
+    assertSameEntries(expected, actual);
+
+    for (int i = 0; i < keys.size(); i += 2) {
+      expected.remove(keys.get(i));
+      actual = actual.without(keys.get(i));
+    }
+    assertSameEntries(expected, actual);
+  }
+
+  private static <K, V> void assertSameEntries(Map<K, V> expected, PersistentMap<K, V> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (Map.Entry<K, V> entry : expected.entrySet()) {
+      Assert.assertEquals(entry.getValue(), actual.get(entry.getKey()));
+    }
+
+    Map<K, V> visited = new HashMap<>();
+    actual.forEach(visited::put);
+    Assert.assertEquals(expected, visited);
+  }
+
+  /** A key with a chosen hash code. */
+  private static final class Collider {
+    private final int id;
+    private final int hash;
+
+    private Collider(int id, int hash) {
+      this.id = id;
+      this.hash = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Collider && ((Collider) other).id == id;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryStatsTest {
+  private static final Collection<Event> EVENTS = Arrays.asList(
+      new Event("Event 1", TimeRange.fromStartDuration(0, 30), Arrays.asList("Person A")),
+      new Event("Event 2", TimeRange.fromStartDuration(60, 30), Arrays.asList("Person B")));
+
+  @Before
+  public void setUp() {
+    // Stats are fixed when the JVM starts. The build runs this test alone in a JVM with them on,
+    // and the rest of the suite with them off.
+    Assume.assumeTrue(QueryStats.isEnabled());
+    QueryStats.reset();
+  }
+
+  @Test
+  public void everyPhaseOfAQueryIsRecorded() {
+    new FindMeetingQuery().query(EVENTS, new MeetingRequest(Arrays.asList("Person A"), 30));
+
+    Map<QueryStats.Phase, QueryStats.Summary> stats = QueryStats.summarize();
+    Assert.assertEquals(1, stats.get(QueryStats.Phase.COLLECT).getCount());
+    // Only Person A's event keeps the meeting from happening.
+    Assert.assertEquals(1, stats.get(QueryStats.Phase.COLLECT).getTotalItems());
+    Assert.assertEquals(1, stats.get(QueryStats.Phase.SORT).getCount());
+    Assert.assertEquals(1, stats.get(QueryStats.Phase.SORT).getTotalItems());
+    Assert.assertEquals(1, stats.get(QueryStats.Phase.SWEEP).getCount());
+  }
+
+  @Test
+  public void eventsAndCalendarsCountTheSameItems() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Person A", "Person B"), 30);
+
+    new FindMeetingQuery().query(EVENTS, request);
+    long fromEvents = QueryStats.summarize().get(QueryStats.Phase.COLLECT).getTotalItems();
+    QueryStats.reset();
+    new FindMeetingQuery().query(new AttendeeCalendarIndex(EVENTS), request);
+    long fromCalendar = QueryStats.summarize().get(QueryStats.Phase.COLLECT).getTotalItems();
+
+    Assert.assertEquals(2, fromEvents);
+    Assert.assertEquals(fromEvents, fromCalendar);
+  }
+
+  @Test
+  public void everyKindOfQueryIsRecorded() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Person A"), 30);
+    request.addOptionalAttendee("Person B");
+    request.addCandidateRoom(new Room("Room 1", 2));
+
+    query.queryLazily(EVENTS, request).findFirst();
+    query.queryLazily(new AttendeeCalendarIndex(EVENTS), request).findFirst();
+    query.query(EVENTS, new QuorumMeetingRequest(Arrays.asList("Person A", "Person B"), 1, 30));
+    query.queryMaximizingOptional(EVENTS, request);
+    query.queryWithRooms(EVENTS, request);
+
+    Map<QueryStats.Phase, QueryStats.Summary> stats = QueryStats.summarize();
+    // The optional query collects the mandatory attendees apart from the optional ones, so that it
+    // can merge them.
+    Assert.assertEquals(6, stats.get(QueryStats.Phase.COLLECT).getCount());
+    // Every query collects Person A's and Person B's events.
+    Assert.assertEquals(10, stats.get(QueryStats.Phase.COLLECT).getTotalItems());
+    // The lazy queries sweep while they are read, so they record neither a sort nor a sweep. The
+    // optional query sweeps once to find the best attendance and again to find its times.
+    Assert.assertEquals(3, stats.get(QueryStats.Phase.SORT).getCount());
+    Assert.assertEquals(4, stats.get(QueryStats.Phase.SWEEP).getCount());
+  }
+
+  @Test
+  public void resetForgetsEverything() {
+    new FindMeetingQuery().query(
+        Arrays.asList(), new MeetingRequest(Arrays.asList("Person A"), 30));
+    QueryStats.reset();
+
+    for (QueryStats.Summary summary : QueryStats.summarize().values()) {
+      Assert.assertEquals(0, summary.getCount());
+      Assert.assertEquals(0, summary.getP99Nanos());
+      Assert.assertTrue(summary.getHistogram().isEmpty());
+    }
+  }
+
+  @Test
+  public void percentilesAreUpperBounds() {
+    new FindMeetingQuery().query(
+        Arrays.asList(
+            new Event("Event 1", TimeRange.fromStartDuration(0, 30), Arrays.asList("Person A"))),
+        new MeetingRequest(Arrays.asList("Person A"), 30));
+
+    QueryStats.Summary sweep = QueryStats.summarize().get(QueryStats.Phase.SWEEP);
+    Assert.assertTrue(sweep.getP50Nanos() >= sweep.getTotalNanos());
+    Assert.assertEquals(1L << (sweep.getHistogram().size() - 1), sweep.getP99Nanos());
+  }
+}
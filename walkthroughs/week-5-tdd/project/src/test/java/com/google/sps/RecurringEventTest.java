@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int DAY = 24 * 60;
+  private static final int JAN_1 =
+      HorizonCalendar.toEpochMinutes(LocalDateTime.of(2020, 1, 1, 0, 0));
+  private static final int STANDUP = JAN_1 + 9 * 60;
+
+  @Test
+  public void onlyOccurrencesInTheWindowAreExpanded() {
+    RecurringEvent standup = new RecurringEvent("Standup", TimeRange.fromStartDuration(STANDUP, 15),
+        RecurringEvent.DAILY, RecurringEvent.FOREVER, Arrays.asList(PERSON_A));
+
+    List<Integer> starts = new ArrayList<>();
+    standup.forEachOccurrence(JAN_1 + 100 * DAY, JAN_1 + 103 * DAY,
+        (start, end) -> starts.add(start));
+
+    Assert.assertEquals(
+        Arrays.asList(STANDUP + 100 * DAY, STANDUP + 101 * DAY, STANDUP + 102 * DAY), starts);
+  }
+
+  @Test
+  public void occurrencesOverlappingTheWindowEdgesAreIncluded() {
+    RecurringEvent standup = new RecurringEvent("Standup", TimeRange.fromStartDuration(STANDUP, 15),
+        RecurringEvent.DAILY, RecurringEvent.FOREVER, Arrays.asList(PERSON_A));
+
+    List<Integer> starts = new ArrayList<>();
+    standup.forEachOccurrence(STANDUP + DAY + 10, STANDUP + 2 * DAY + 1,
+        (start, end) -> starts.add(start));
+
+    Assert.assertEquals(Arrays.asList(STANDUP + DAY, STANDUP + 2 * DAY), starts);
+  }
+
+  @Test
+  public void exceptionsAndTheLastOccurrenceAreRespected() {
+    RecurringEvent review = new RecurringEvent("Review", TimeRange.fromStartDuration(STANDUP, 60),
+        RecurringEvent.WEEKLY, 3, Arrays.asList(PERSON_A), Arrays.asList(STANDUP + 7 * DAY));
+
+    List<Integer> starts = new ArrayList<>();
+    review.forEachOccurrence(JAN_1, JAN_1 + 365 * DAY, (start, end) -> starts.add(start));
+
+    Assert.assertEquals(Arrays.asList(STANDUP, STANDUP + 14 * DAY), starts);
+  }
+
+  @Test
+  public void nothingBeforeTheFirstOccurrence() {
+    RecurringEvent standup = new RecurringEvent("Standup", TimeRange.fromStartDuration(STANDUP, 15),
+        RecurringEvent.DAILY, RecurringEvent.FOREVER, Arrays.asList(PERSON_A));
+
+    List<Integer> starts = new ArrayList<>();
+    standup.forEachOccurrence(JAN_1 - 10 * DAY, STANDUP, (start, end) -> starts.add(start));
+
+    Assert.assertTrue(starts.isEmpty());
+  }
+}
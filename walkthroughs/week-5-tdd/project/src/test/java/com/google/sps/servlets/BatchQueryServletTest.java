@@ -0,0 +1,124 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BatchQueryServletTest {
+  @Test
+  public void validBatchIsRead() throws IOException {
+    List<MeetingRequest> batch = BatchQueryServlet.readBatch(new StringReader(
+        "[{\"attendees\": [\"Person A\"], \"duration\": 30}, {\"duration\": 60}]"));
+
+    Assert.assertEquals(2, batch.size());
+    Assert.assertEquals(Arrays.asList("Person A"), new ArrayList<>(batch.get(0).getAttendees()));
+    Assert.assertEquals(60, batch.get(1).getDuration());
+  }
+
+  @Test
+  public void nullListsAreReadAsEmpty() throws IOException {
+    List<MeetingRequest> batch = BatchQueryServlet.readBatch(new StringReader(
+        "[{\"attendees\": null, \"optional_attendees\": null, \"candidate_rooms\": null,"
+            + " \"duration\": 30}]"));
+
+    Assert.assertTrue(batch.get(0).getAttendees().isEmpty());
+    Assert.assertTrue(batch.get(0).getOptionalAttendees().isEmpty());
+    Assert.assertTrue(batch.get(0).getCandidateRooms().isEmpty());
+  }
+
+  @Test
+  public void malformedRequestsFailTheWholeBatch() throws IOException {
+    String[] batches = {
+        "{\"duration\": 30}",
+        "[{\"duration\": 30}, null]",
+        "[{\"duration\": -30}]",
+        "[{\"attendees\": [\"Person A\", null], \"duration\": 30}]",
+        "[{\"candidate_rooms\": [null], \"duration\": 30}]",
+        "[{\"duration\": 30},",
+    };
+
+    for (String batch : batches) {
+      try {
+        BatchQueryServlet.readBatch(new StringReader(batch));
+        Assert.fail("Expected " + batch + " to be rejected");
+      } catch (JsonParseException expected) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test
+  public void oversizedBatchIsRejectedWithoutReadingTheRest() throws IOException {
+    StringBuilder batch = new StringBuilder("[");
+    for (int i = 0; i <= BatchQueryServlet.MAX_BATCH_SIZE; i++) {
+      batch.append("{\"duration\": 30},");
+    }
+    // Never reached, so the body doesn't even have to be valid JSON past the limit.
+    batch.append("not json");
+
+    try {
+      BatchQueryServlet.readBatch(new StringReader(batch.toString()));
+      Assert.fail("Expected the batch to be rejected");
+    } catch (JsonParseException expected) {
+      Assert.assertTrue(expected.getMessage().contains("at most"));
+    }
+  }
+
+  @Test
+  public void failedAnswerIsWrittenAsAnErrorInItsPlace() throws IOException {
+    List<ForkJoinTask<Collection<TimeRange>>> answers = Arrays.asList(
+        completed(Arrays.asList(TimeRange.fromStartDuration(0, 30))),
+        failed(),
+        completed(Arrays.asList()));
+
+    StringWriter out = new StringWriter();
+    BatchQueryServlet.writeAnswers(answers, new JsonWriter(out));
+
+    Assert.assertEquals("[[{\"start\":0,\"duration\":30}],"
+        + "{\"error\":\"Could not answer this request.\"},[]]", out.toString());
+  }
+
+  private static ForkJoinTask<Collection<TimeRange>> completed(Collection<TimeRange> times) {
+    ForkJoinTask<Collection<TimeRange>> task = ForkJoinTask.adapt(() -> times);
+    task.invoke();
+    return task;
+  }
+
+  private static ForkJoinTask<Collection<TimeRange>> failed() {
+    ForkJoinTask<Collection<TimeRange>> task = ForkJoinTask.adapt(() -> {
+      throw new IllegalStateException("query failed");
+    });
+    task.quietlyInvoke();
+    return task;
+  }
+}
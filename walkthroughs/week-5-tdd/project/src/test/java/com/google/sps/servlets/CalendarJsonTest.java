@@ -0,0 +1,91 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.Room;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarJsonTest {
+  private static final Type EVENTS = new TypeToken<List<Event>>() {}.getType();
+
+  private static final List<Event> EVENTS_LIST = Arrays.asList(
+      new Event("Event 1", TimeRange.fromStartDuration(480, 30),
+          Arrays.asList("Person A", "Person B")),
+      new Event("Café \"Lunch\"", TimeRange.fromStartDuration(720, 60), Arrays.asList()));
+
+  @Test
+  public void writesTheSameJsonAsReflection() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CalendarJson.write(EVENTS_LIST, EVENTS, out);
+
+    Assert.assertEquals(new Gson().toJson(EVENTS_LIST, EVENTS),
+        new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void roomsAreReadThroughTheirConstructor() {
+    MeetingRequest request = CalendarJson.GSON.fromJson(
+        "{\"duration\": 30, \"candidate_rooms\": [{\"name\": \"Room 1\", \"capacity\": 4}]}",
+        MeetingRequest.class);
+
+    Assert.assertEquals(Arrays.asList(new Room("Room 1", 4)),
+        new ArrayList<>(request.getCandidateRooms()));
+  }
+
+  @Test
+  public void roomsWithoutRoomForAnyoneAreRejected() {
+    String[] rooms = {
+        "{\"name\": \"Room 1\", \"capacity\": 0}",
+        "{\"name\": \"Room 1\", \"capacity\": -4}",
+        "{\"capacity\": 4}",
+    };
+
+    for (String room : rooms) {
+      try {
+        CalendarJson.GSON.fromJson(
+            "{\"duration\": 30, \"candidate_rooms\": [" + room + "]}", MeetingRequest.class);
+        Assert.fail("Expected " + room + " to be rejected");
+      } catch (JsonParseException expected) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test
+  public void eventsRoundTrip() {
+    String json = CalendarJson.GSON.toJson(EVENTS_LIST, EVENTS);
+
+    Assert.assertEquals(EVENTS_LIST, CalendarJson.GSON.fromJson(json, EVENTS));
+  }
+}